@@ -12,6 +12,12 @@ import java.util.Map;
 public class NetworkConfig {
     private Map<String, NetworkProperties> networks;
 
+    public enum ConfirmationPolicy {
+        DEPTH,      // requiredConfirmations blocks on top of the inclusion block
+        SAFE,       // included at or below the "safe" block
+        FINALIZED   // included at or below the "finalized" block
+    }
+
     @Data
     public static class NetworkProperties {
         private String rpcUrl;
@@ -19,6 +25,7 @@ public class NetworkConfig {
         private String name;
         private String currency;
         private int requiredConfirmations;
+        private ConfirmationPolicy confirmationPolicy = ConfirmationPolicy.DEPTH;
         private double blockTime; // in seconds
         private String explorerUrl;
         private Map<String, String> contracts; // contract addresses for this network
@@ -0,0 +1,91 @@
+package com.web3platform.wallet_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the single spring.datasource pool with a primary plus read replicas when
+ * replica.enabled is set. Read-only transactions are served by the replicas, see
+ * {@link ReplicaRoutingDataSource}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "replica.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Value("${replica.datasource.urls}")
+    private List<String> urls;
+
+    @Value("${replica.datasource.username:${spring.datasource.username}}")
+    private String username;
+
+    @Value("${replica.datasource.password:${spring.datasource.password}}")
+    private String password;
+
+    @Value("${replica.datasource.maximum-pool-size:10}")
+    private int maximumPoolSize;
+
+    // Kept short so a replica that is down fails the lag check quickly
+    @Value("${replica.datasource.connection-timeout-ms:2000}")
+    private long connectionTimeoutMs;
+
+    @Value("${replica.max-lag-ms:5000}")
+    private long maxLagMs;
+
+    /**
+     * The primary pool, configured like the default one including the spring.datasource.hikari
+     * settings.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean(destroyMethod = "closeReplicas")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource, DataSourceProperties properties) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            if (!StringUtils.hasText(url)) {
+                continue;
+            }
+            String name = "replica-" + (replicas.size() + 1);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(name);
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setConnectionTimeout(connectionTimeoutMs);
+            replica.setReadOnly(true);
+            replicas.put(name, replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagMs);
+    }
+
+    /**
+     * The data source JPA, Flyway and JdbcTemplate use. The proxy defers taking a connection
+     * until the first statement, by which time the transaction's read-only flag is known.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
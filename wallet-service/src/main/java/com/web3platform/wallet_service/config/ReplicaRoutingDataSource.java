@@ -0,0 +1,149 @@
+package com.web3platform.wallet_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to the replicas, round robin, and everything else to the
+ * primary. A replica only takes reads while its last measured replication lag is within
+ * maxLagMillis; until the first check, or when no replica qualifies, reads go to the primary.
+ * Lag is measured against the primary's current WAL position, so a replica whose receiver has
+ * disconnected stops qualifying as soon as the primary moves on without it.
+ * Must sit behind a LazyConnectionDataSourceProxy so the connection is chosen after the
+ * transaction is marked read-only.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    static final String PRIMARY_LSN_QUERY = "SELECT pg_current_wal_lsn()::text";
+
+    // 0 once the replica has replayed up to the primary position read before it, otherwise
+    // the age of the last replayed transaction; NULL when it has not replayed any yet
+    static final String LAG_QUERY =
+            "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_replay_lsn() >= ?::pg_lsn THEN 0 " +
+            "ELSE (EXTRACT(EPOCH FROM clock_timestamp() - pg_last_xact_replay_timestamp()) * 1000)::bigint END";
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private volatile List<String> usableReplicas = List.of();
+
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, long maxLagMillis) {
+        this.primary = primary;
+        this.replicas = new LinkedHashMap<>(replicas);
+        this.maxLagMillis = maxLagMillis;
+
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        List<String> usable = usableReplicas;
+        if (usable.isEmpty()) {
+            return PRIMARY;
+        }
+        return usable.get(Math.floorMod(next.getAndIncrement(), usable.size()));
+    }
+
+    @Scheduled(fixedDelayString = "${replica.lag-check-ms:1000}")
+    public void checkReplicationLag() {
+        String primaryLsn;
+        try {
+            primaryLsn = primaryWalPosition();
+        } catch (SQLException | RuntimeException e) {
+            // Nothing to measure against, so no replica can be shown to be current
+            log.warn("Could not read the primary WAL position: {}", e.getMessage());
+            primaryLsn = null;
+        }
+
+        List<String> usable = new ArrayList<>();
+        for (Map.Entry<String, DataSource> replica : replicas.entrySet()) {
+            if (primaryLsn == null) {
+                break;
+            }
+            try {
+                long lag = replicationLagMillis(replica.getValue(), primaryLsn);
+                if (lag <= maxLagMillis) {
+                    usable.add(replica.getKey());
+                } else {
+                    log.warn("Replica {} is {} ms behind, reading from the primary", replica.getKey(), lag);
+                }
+            } catch (SQLException | RuntimeException e) {
+                log.warn("Could not measure the lag of replica {}: {}", replica.getKey(), e.getMessage());
+            }
+        }
+        if (!usable.equals(usableReplicas)) {
+            log.info("Routing read-only transactions to replicas {}", usable);
+        }
+        usableReplicas = List.copyOf(usable);
+    }
+
+    List<String> getUsableReplicas() {
+        return usableReplicas;
+    }
+
+    protected String primaryWalPosition() throws SQLException {
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(5);
+            try (ResultSet rs = statement.executeQuery(PRIMARY_LSN_QUERY)) {
+                rs.next();
+                return rs.getString(1);
+            }
+        }
+    }
+
+    protected long replicationLagMillis(DataSource replica, String primaryLsn) throws SQLException {
+        try (Connection connection = replica.getConnection();
+             PreparedStatement statement = connection.prepareStatement(LAG_QUERY)) {
+            statement.setQueryTimeout(5);
+            statement.setString(1, primaryLsn);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                long lag = rs.getLong(1);
+                return rs.wasNull() ? Long.MAX_VALUE : lag;
+            }
+        }
+    }
+
+    /**
+     * Closes the replica pools this data source was given. The primary is a bean of its own
+     * and is closed by the container.
+     */
+    public void closeReplicas() {
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof HikariDataSource) {
+                ((HikariDataSource) replica).close();
+            }
+        }
+    }
+}
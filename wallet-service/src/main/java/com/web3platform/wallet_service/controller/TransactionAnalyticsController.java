@@ -1,16 +1,29 @@
 package com.web3platform.wallet_service.controller;
 
 import com.web3platform.wallet_service.model.DappTransaction;
+import com.web3platform.wallet_service.service.ConfirmationLatencyService;
 import com.web3platform.wallet_service.service.TransactionAnalyticsService;
+import com.web3platform.wallet_service.service.TransactionExportService;
+import com.web3platform.wallet_service.service.TransactionSeriesStore;
+import com.web3platform.wallet_service.util.TransactionCursor;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 
 @RestController
@@ -20,20 +33,92 @@ public class TransactionAnalyticsController {
     @Autowired
     private TransactionAnalyticsService transactionAnalyticsService;
 
+    @Autowired
+    private ConfirmationLatencyService confirmationLatencyService;
+
+    @Autowired
+    private TransactionSeriesStore transactionSeriesStore;
+
+    @Autowired
+    private TransactionExportService transactionExportService;
+
+    @Value("${export.timeout-ms:3600000}")
+    private long exportTimeoutMillis;
+
     @GetMapping("/history/{userId}")
     public ResponseEntity<TransactionAnalyticsService.TransactionHistory> getTransactionHistory(
             @PathVariable Long userId,
             @RequestParam String network,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean fullRangeAnalytics) {
 
         return ResponseEntity.ok(transactionAnalyticsService.getTransactionHistory(
                 userId,
                 network,
-                PageRequest.of(page, size)
+                PageRequest.of(page, size),
+                fullRangeAnalytics
         ));
     }
 
+    /**
+     * Cursor-based history; pass the returned nextCursor to fetch the following slice.
+     */
+    @GetMapping("/history/{userId}/slice")
+    public ResponseEntity<TransactionAnalyticsService.TransactionHistorySlice> getTransactionHistorySlice(
+            @PathVariable Long userId,
+            @RequestParam String network,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean fullRangeAnalytics) {
+
+        try {
+            return ResponseEntity.ok(transactionAnalyticsService.getTransactionHistory(
+                    userId,
+                    network,
+                    cursor,
+                    size,
+                    fullRangeAnalytics
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Streams the user's whole history, newest first. Every row carries a cursor; after a
+     * disconnect, pass the cursor of the last row received to continue right after it.
+     * Runs with its own timeout, export.timeout-ms, instead of the default async one.
+     */
+    @GetMapping("/export/{userId}")
+    public WebAsyncTask<Void> exportTransactions(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String network,
+            @RequestParam(defaultValue = "CSV") TransactionExportService.ExportFormat format,
+            @RequestParam(required = false) String cursor,
+            HttpServletResponse response) throws IOException {
+
+        TransactionCursor after;
+        try {
+            after = TransactionCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpStatus.BAD_REQUEST.value());
+            return null;
+        }
+
+        boolean csv = format == TransactionExportService.ExportFormat.CSV;
+        response.setContentType((csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON).toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("transactions-" + userId + (csv ? ".csv" : ".ndjson"))
+                .build()
+                .toString());
+        return new WebAsyncTask<>(exportTimeoutMillis, () -> {
+            transactionExportService.export(userId, network, after, format, response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+
     @GetMapping("/analytics/{userId}")
     public ResponseEntity<TransactionAnalyticsService.TransactionAnalytics> getTransactionAnalytics(
             @PathVariable Long userId,
@@ -49,6 +134,40 @@ public class TransactionAnalyticsController {
         ));
     }
 
+    @GetMapping("/series/{userId}")
+    public ResponseEntity<TransactionSeriesStore.TransactionSeries> getTransactionSeries(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String network,
+            @RequestParam(required = false) String dappName,
+            @RequestParam(defaultValue = "DAILY") TransactionSeriesStore.SeriesInterval interval,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+
+        return ResponseEntity.ok(transactionSeriesStore.getSeries(
+                userId,
+                network,
+                dappName,
+                interval,
+                startDate,
+                endDate
+        ));
+    }
+
+    @GetMapping("/latency")
+    public ResponseEntity<ConfirmationLatencyService.LatencyPercentiles> getConfirmationLatency(
+            @RequestParam String network,
+            @RequestParam(required = false) String dappName,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+
+        return ResponseEntity.ok(confirmationLatencyService.getPercentiles(
+                network,
+                dappName,
+                startDate,
+                endDate
+        ));
+    }
+
     @PostMapping("/search/{userId}")
     public ResponseEntity<TransactionAnalyticsService.TransactionSearchResult> searchTransactions(
             @PathVariable Long userId,
@@ -60,8 +179,9 @@ public class TransactionAnalyticsController {
                 PageRequest.of(
                         request.getPage(),
                         request.getSize(),
-                        Sort.by(Sort.Direction.DESC, "createdAt")
-                )
+                        Sort.by(Sort.Direction.DESC, "timestamp")
+                ),
+                request.isFullRangeAnalytics()
         ));
     }
 
@@ -70,12 +190,14 @@ public class TransactionAnalyticsController {
             @PathVariable Long userId,
             @RequestParam String query,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean fullRangeAnalytics) {
 
         return ResponseEntity.ok(transactionAnalyticsService.searchTransactionsByQuery(
                 userId,
                 query,
-                PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"))
+                PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "timestamp")),
+                fullRangeAnalytics
         ));
     }
 
@@ -91,6 +213,7 @@ public class TransactionAnalyticsController {
         private TransactionAnalyticsService.TransactionSearchCriteria criteria;
         private int page = 0;
         private int size = 20;
+        private boolean fullRangeAnalytics; // analytics over every match instead of the page
     }
 
     @Data
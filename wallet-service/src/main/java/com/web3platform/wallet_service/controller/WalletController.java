@@ -2,7 +2,9 @@ package com.web3platform.wallet_service.controller;
 
 import com.web3platform.wallet_service.service.WalletService;
 import com.web3platform.wallet_service.service.TransactionService;
+import com.web3platform.wallet_service.dto.CursorPage;
 import com.web3platform.wallet_service.dto.TransactionDTO;
+import com.web3platform.wallet_service.dto.TransactionSummaryDTO;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -30,10 +32,10 @@ public class WalletController {
     }
 
     @GetMapping("/transactions/recent")
-    public ResponseEntity<List<TransactionDTO>> getRecentTransactions(
+    public ResponseEntity<List<TransactionSummaryDTO>> getRecentTransactions(
             @RequestParam(defaultValue = "5") int limit) {
         try {
-            List<TransactionDTO> transactions = transactionService.getRecentTransactions(limit);
+            List<TransactionSummaryDTO> transactions = transactionService.getRecentTransactions(limit);
             return ResponseEntity.ok(transactions);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
@@ -51,14 +53,42 @@ public class WalletController {
         }
     }
 
+    @GetMapping("/transactions/user/{userId}")
+    public ResponseEntity<CursorPage<TransactionSummaryDTO>> getUserTransactions(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(transactionService.getTransactionsByUser(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/transactions/wallet/{walletAddress}")
+    public ResponseEntity<CursorPage<TransactionSummaryDTO>> getWalletTransactions(
+            @PathVariable String walletAddress,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(transactionService.getTransactionsByWallet(walletAddress, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
     @GetMapping("/transactions")
-    public ResponseEntity<List<TransactionDTO>> getTransactions(
+    public ResponseEntity<List<TransactionSummaryDTO>> getTransactions(
             @RequestParam(required = false) String type,
             @RequestParam(required = false) String status,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
-            List<TransactionDTO> transactions = transactionService.getTransactions(type, status, page, size);
+            List<TransactionSummaryDTO> transactions = transactionService.getTransactions(type, status, page, size);
             return ResponseEntity.ok(transactions);
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
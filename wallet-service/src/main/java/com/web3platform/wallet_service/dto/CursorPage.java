@@ -0,0 +1,16 @@
+package com.web3platform.wallet_service.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One slice of a keyset listing. There is no total count; pass nextCursor back to fetch the
+ * following slice while hasNext is true.
+ */
+@Data
+public class CursorPage<T> {
+    private final List<T> items;
+    private final String nextCursor;
+    private final boolean hasNext;
+}
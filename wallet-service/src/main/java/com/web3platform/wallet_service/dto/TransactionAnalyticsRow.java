@@ -0,0 +1,22 @@
+package com.web3platform.wallet_service.dto;
+
+import com.web3platform.wallet_service.model.DappTransaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The columns analytics needs from a transaction, selected with a constructor expression so
+ * streamed rows never become managed entities.
+ */
+@Data
+@AllArgsConstructor
+public class TransactionAnalyticsRow {
+    private DappTransaction.TransactionType type;
+    private DappTransaction.TransactionStatus status;
+    private BigDecimal gasPrice;
+    private Long gasLimit;
+    private LocalDateTime timestamp;
+    private LocalDateTime completedAt;
+}
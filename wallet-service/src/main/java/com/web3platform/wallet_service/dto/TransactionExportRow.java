@@ -0,0 +1,34 @@
+package com.web3platform.wallet_service.dto;
+
+import com.web3platform.wallet_service.model.DappTransaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The columns of a transaction history export, selected with a constructor expression so
+ * exported rows never become managed entities.
+ */
+@Data
+@AllArgsConstructor
+public class TransactionExportRow {
+    private Long id;
+    private LocalDateTime timestamp;
+    private LocalDateTime completedAt;
+    private DappTransaction.TransactionType type;
+    private DappTransaction.TransactionStatus status;
+    private String network;
+    private String dappName;
+    private String transactionHash;
+    private String walletAddress;
+    private String fromAddress;
+    private String toAddress;
+    private String contractAddress;
+    private String token;
+    private String amount;
+    private BigDecimal value;
+    private BigDecimal gasPrice;
+    private Long gasLimit;
+    private Long blockNumber;
+}
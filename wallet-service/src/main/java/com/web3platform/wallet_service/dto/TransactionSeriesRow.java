@@ -0,0 +1,23 @@
+package com.web3platform.wallet_service.dto;
+
+import com.web3platform.wallet_service.model.DappTransaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The columns the series store keeps per transaction, selected with a constructor expression.
+ */
+@Data
+@AllArgsConstructor
+public class TransactionSeriesRow {
+    private Long id;
+    private LocalDateTime timestamp;
+    private String network;
+    private String dappName;
+    private DappTransaction.TransactionStatus status;
+    private BigDecimal gasPrice;
+    private Long gasLimit;
+    private BigDecimal value;
+}
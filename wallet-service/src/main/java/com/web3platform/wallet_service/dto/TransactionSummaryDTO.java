@@ -0,0 +1,30 @@
+package com.web3platform.wallet_service.dto;
+
+import com.web3platform.wallet_service.model.DappTransaction;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A transaction as shown in listings, selected with a constructor expression. Call data,
+ * error messages and the other detail columns are only in {@link TransactionDTO}.
+ */
+@Data
+@AllArgsConstructor
+public class TransactionSummaryDTO {
+    private Long id;
+    private DappTransaction.TransactionType type;
+    private DappTransaction.TransactionStatus status;
+    private String transactionHash;
+    private LocalDateTime timestamp;
+    private String amount;
+    private String token;
+    private String fromAddress;
+    private String toAddress;
+    private String walletAddress;
+    private String network;
+    private String dappName;
+    private BigDecimal value;
+    private Long blockNumber;
+}
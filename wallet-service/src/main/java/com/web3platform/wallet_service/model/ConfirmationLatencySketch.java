@@ -0,0 +1,44 @@
+package com.web3platform.wallet_service.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * One node's confirmation-latency histogram for a network, dapp and hour, stored in
+ * HdrHistogram's compressed encoding. Rows of different hours and nodes are merged on read.
+ */
+@Entity
+@Table(name = "confirmation_latency_sketch", uniqueConstraints = @UniqueConstraint(
+        name = "uk_confirmation_latency_sketch_bucket",
+        columnNames = {"network", "dapp_name", "bucket_start", "node_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConfirmationLatencySketch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "confirmation_latency_sketch_seq")
+    @SequenceGenerator(name = "confirmation_latency_sketch_seq", sequenceName = "confirmation_latency_sketch_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "network", nullable = false)
+    private String network;
+
+    @Column(name = "dapp_name", nullable = false)
+    private String dappName; // empty for transactions without a dapp
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "node_id", nullable = false)
+    private String nodeId;
+
+    @Column(name = "histogram", nullable = false, columnDefinition = "bytea")
+    private byte[] histogram; // latencies in milliseconds
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
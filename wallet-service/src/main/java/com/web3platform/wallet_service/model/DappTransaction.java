@@ -1,13 +1,16 @@
 package com.web3platform.wallet_service.model;
 
+import com.web3platform.wallet_service.service.TransactionStateListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 @Entity
+@EntityListeners(TransactionStateListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -33,7 +36,8 @@ public class DappTransaction {
     }
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dapp_transaction_seq")
+    @SequenceGenerator(name = "dapp_transaction_seq", sequenceName = "dapp_transaction_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -44,8 +48,8 @@ public class DappTransaction {
     @Enumerated(EnumType.STRING)
     private TransactionStatus status;
 
-    @Column(name = "transaction_hash", unique = true)
-    private String transactionHash;
+    @Column(name = "transaction_hash")
+    private String transactionHash; // indexed, not unique across the monthly partitions
 
     @Column(name = "created_at", nullable = false)
     private LocalDateTime timestamp;
@@ -71,6 +75,17 @@ public class DappTransaction {
     @Column(name = "network", nullable = false)
     private String network;
 
+    // Lowercase copies of the identifiers for indexed prefix search. The "C" collation makes
+    // byte order the sort order, so prefix ranges map directly onto the B-tree.
+    @Column(name = "transaction_hash_lc", columnDefinition = "varchar(255) COLLATE \"C\"")
+    private String transactionHashLc;
+
+    @Column(name = "wallet_address_lc", columnDefinition = "varchar(255) COLLATE \"C\"")
+    private String walletAddressLc;
+
+    @Column(name = "contract_address_lc", columnDefinition = "varchar(255) COLLATE \"C\"")
+    private String contractAddressLc;
+
     @Column(name = "dapp_name")
     private String dappName;
 
@@ -83,11 +98,20 @@ public class DappTransaction {
     @Column(name = "function_params", columnDefinition = "TEXT")
     private String functionParams;
 
+    @Column(name = "input_data", columnDefinition = "TEXT")
+    private String inputData; // encoded calldata, needed to rebroadcast with the same nonce
+
     @Column(name = "value", precision = 36, scale = 18)
     private BigDecimal value;
 
-    @Column(name = "gas_price")
-    private BigDecimal gasPrice;
+    @Column(name = "gas_price", precision = 38, scale = 0)
+    private BigDecimal gasPrice; // wei
+
+    @Column(name = "max_fee_per_gas", precision = 38, scale = 0)
+    private BigDecimal maxFeePerGas;
+
+    @Column(name = "max_priority_fee_per_gas", precision = 38, scale = 0)
+    private BigDecimal maxPriorityFeePerGas;
 
     @Column(name = "gas_limit")
     private Long gasLimit;
@@ -104,8 +128,40 @@ public class DappTransaction {
     @Column(name = "error_message")
     private String errorMessage;
 
+    @Column(name = "retry_count")
+    private Integer retryCount;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    // Maintained only by TransactionRollupRepository, never written through the entity
+    @Column(name = "completed_at", insertable = false, updatable = false)
+    private LocalDateTime completedAt;
+
+    @Column(name = "rollup_status", insertable = false, updatable = false)
+    @Enumerated(EnumType.STRING)
+    private TransactionStatus rollupStatus; // status counted in transaction_rollup, null if not counted
+
     @PrePersist
     protected void onCreate() {
         timestamp = LocalDateTime.now();
+        normalizeSearchColumns();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        normalizeSearchColumns();
+    }
+
+    private void normalizeSearchColumns() {
+        transactionHashLc = transactionHash != null ? transactionHash.toLowerCase(Locale.ROOT) : null;
+        walletAddressLc = walletAddress != null ? walletAddress.toLowerCase(Locale.ROOT) : null;
+        contractAddressLc = contractAddress != null ? contractAddress.toLowerCase(Locale.ROOT) : null;
     }
 }
\ No newline at end of file
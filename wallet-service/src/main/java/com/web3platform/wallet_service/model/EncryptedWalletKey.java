@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 public class EncryptedWalletKey {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "encrypted_wallet_key_seq")
+    @SequenceGenerator(name = "encrypted_wallet_key_seq", sequenceName = "encrypted_wallet_key_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
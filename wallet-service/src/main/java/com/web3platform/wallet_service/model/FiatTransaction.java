@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 public class FiatTransaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fiat_transaction_seq")
+    @SequenceGenerator(name = "fiat_transaction_seq", sequenceName = "fiat_transaction_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_id", nullable = false)
@@ -13,7 +13,8 @@ import java.time.LocalDateTime;
 public class MfaInfo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mfa_info_seq")
+    @SequenceGenerator(name = "mfa_info_seq", sequenceName = "mfa_info_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "user_id", nullable = false, unique = true)
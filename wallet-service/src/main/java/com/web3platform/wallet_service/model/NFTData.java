@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 public class NFTData {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "nftdata_seq")
+    @SequenceGenerator(name = "nftdata_seq", sequenceName = "nftdata_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "token_id", nullable = false)
@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 public class SocialRecoveryShare {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "social_recovery_share_seq")
+    @SequenceGenerator(name = "social_recovery_share_seq", sequenceName = "social_recovery_share_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -0,0 +1,44 @@
+package com.web3platform.wallet_service.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A hash that was broadcast for a transaction's nonce and later replaced by a higher-fee
+ * broadcast of the same nonce. Any hash in the chain may still be the one that gets mined.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionReplacement {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_replacement_seq")
+    @SequenceGenerator(name = "transaction_replacement_seq", sequenceName = "transaction_replacement_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "transaction_id", nullable = false)
+    private Long transactionId;
+
+    @Column(name = "transaction_hash", nullable = false, unique = true)
+    private String transactionHash;
+
+    @Column(name = "max_fee_per_gas")
+    private BigDecimal maxFeePerGas;
+
+    @Column(name = "max_priority_fee_per_gas")
+    private BigDecimal maxPriorityFeePerGas;
+
+    @Column(name = "replaced_at", nullable = false)
+    private LocalDateTime replacedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        replacedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,67 @@
+package com.web3platform.wallet_service.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Running totals of the terminal transactions of one user, network, day and type. Rows are
+ * only ever changed by the upserts in TransactionRollupRepository, one transaction at a time.
+ */
+@Entity
+@Table(name = "transaction_rollup", uniqueConstraints = @UniqueConstraint(
+        name = "uk_transaction_rollup_bucket",
+        columnNames = {"user_id", "network", "day", "type"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_rollup_seq")
+    @SequenceGenerator(name = "transaction_rollup_seq", sequenceName = "transaction_rollup_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "network", nullable = false)
+    private String network;
+
+    @Column(name = "day", nullable = false)
+    private LocalDate day; // date of created_at
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private DappTransaction.TransactionType type;
+
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+
+    @Column(name = "confirmed_count", nullable = false)
+    private long confirmedCount;
+
+    @Column(name = "failed_count", nullable = false)
+    private long failedCount;
+
+    @Column(name = "gas_spent", nullable = false, precision = 38, scale = 0)
+    private BigDecimal gasSpent; // sum of gas_price * gas_limit, in wei
+
+    @Column(name = "gas_price_sum", nullable = false, precision = 38, scale = 0)
+    private BigDecimal gasPriceSum; // in wei
+
+    @Column(name = "confirmation_seconds", nullable = false)
+    private long confirmationSeconds;
+
+    @Column(name = "confirmation_count", nullable = false)
+    private long confirmationCount;
+
+    @Column(name = "min_confirmation_seconds")
+    private Long minConfirmationSeconds;
+
+    @Column(name = "max_confirmation_seconds")
+    private Long maxConfirmationSeconds;
+}
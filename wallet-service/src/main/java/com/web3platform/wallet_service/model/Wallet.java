@@ -14,7 +14,8 @@ import java.time.LocalDateTime;
 public class Wallet {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallets_seq")
+    @SequenceGenerator(name = "wallets_seq", sequenceName = "wallets_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -0,0 +1,45 @@
+package com.web3platform.wallet_service.repository;
+
+import com.web3platform.wallet_service.model.ConfirmationLatencySketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ConfirmationLatencySketchRepository extends JpaRepository<ConfirmationLatencySketch, Long> {
+
+    List<ConfirmationLatencySketch> findByNetworkAndBucketStartBetween(
+            String network, LocalDateTime from, LocalDateTime to);
+
+    List<ConfirmationLatencySketch> findByNetworkAndDappNameAndBucketStartBetween(
+            String network, String dappName, LocalDateTime from, LocalDateTime to);
+
+    Optional<ConfirmationLatencySketch> findByNetworkAndDappNameAndBucketStartAndNodeId(
+            String network, String dappName, LocalDateTime bucketStart, String nodeId);
+
+    /**
+     * Stores the node's whole histogram for the bucket, replacing the previous copy, so a
+     * repeated flush never counts a latency twice.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO confirmation_latency_sketch " +
+            "(network, dapp_name, bucket_start, node_id, histogram, updated_at) " +
+            "VALUES (:network, :dappName, :bucketStart, :nodeId, :histogram, :updatedAt) " +
+            "ON CONFLICT (network, dapp_name, bucket_start, node_id) DO UPDATE SET " +
+            "histogram = EXCLUDED.histogram, updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    int upsert(
+            @Param("network") String network,
+            @Param("dappName") String dappName,
+            @Param("bucketStart") LocalDateTime bucketStart,
+            @Param("nodeId") String nodeId,
+            @Param("histogram") byte[] histogram,
+            @Param("updatedAt") LocalDateTime updatedAt);
+}
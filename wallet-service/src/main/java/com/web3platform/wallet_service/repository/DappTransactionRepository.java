@@ -1,36 +1,161 @@
 package com.web3platform.wallet_service.repository;
 
+import com.web3platform.wallet_service.dto.TransactionAnalyticsRow;
+import com.web3platform.wallet_service.dto.TransactionExportRow;
+import com.web3platform.wallet_service.dto.TransactionSeriesRow;
+import com.web3platform.wallet_service.dto.TransactionSummaryDTO;
 import com.web3platform.wallet_service.model.DappTransaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface DappTransactionRepository extends JpaRepository<DappTransaction, Long> {
     Page<DappTransaction> findByUserId(Long userId, Pageable pageable);
     Page<DappTransaction> findByWalletAddress(String walletAddress, Pageable pageable);
     Page<DappTransaction> findByStatus(DappTransaction.TransactionStatus status, Pageable pageable);
+    List<DappTransaction> findByStatus(DappTransaction.TransactionStatus status);
     Page<DappTransaction> findByType(DappTransaction.TransactionType type, Pageable pageable);
     Page<DappTransaction> findByTypeAndStatus(DappTransaction.TransactionType type, DappTransaction.TransactionStatus status, Pageable pageable);
     Page<DappTransaction> findByUserIdAndStatus(Long userId, DappTransaction.TransactionStatus status, Pageable pageable);
     Page<DappTransaction> findByWalletAddressAndStatus(String walletAddress, DappTransaction.TransactionStatus status, Pageable pageable);
     Page<DappTransaction> findByUserIdAndDappName(Long userId, String dappName, Pageable pageable);
-    Optional<DappTransaction> findByTransactionHash(String transactionHash);
-    Page<DappTransaction> findByUserIdAndNetworkOrderByCreatedAtDesc(Long userId, String network, Pageable pageable);
+    // Hashes are not unique across partitions, and a hash can be recorded again by a resubmission
+    Optional<DappTransaction> findFirstByTransactionHashOrderByTimestampDesc(String transactionHash);
+    Page<DappTransaction> findByUserIdAndNetworkOrderByTimestampDesc(Long userId, String network, Pageable pageable);
 
-    List<DappTransaction> findByUserIdAndNetworkAndCreatedAtBetweenOrderByCreatedAtDesc(
-            Long userId, String network, LocalDateTime startDate, LocalDateTime endDate);
+    /*
+     * Listings select only the summary columns; full entities are loaded by id for the detail
+     * view. Offset pages carry their own count query, as one cannot be derived from a
+     * constructor expression.
+     */
+    String SUMMARY = "SELECT new com.web3platform.wallet_service.dto.TransactionSummaryDTO(" +
+            "t.id, t.type, t.status, t.transactionHash, t.timestamp, t.amount, t.token, t.fromAddress, " +
+            "t.toAddress, t.walletAddress, t.network, t.dappName, t.value, t.blockNumber) FROM DappTransaction t";
+    String NEWEST_FIRST = " ORDER BY t.timestamp DESC, t.id DESC";
 
-    @Query("SELECT t FROM DappTransaction t WHERE " +
-            "(:userId IS NULL OR t.userId = :userId) AND " +
+    @Query(SUMMARY + NEWEST_FIRST)
+    List<TransactionSummaryDTO> findRecentSummaries(Pageable pageable);
+
+    @Query(value = SUMMARY + " WHERE t.userId = :userId" + NEWEST_FIRST,
+            countQuery = "SELECT COUNT(t) FROM DappTransaction t WHERE t.userId = :userId")
+    Page<TransactionSummaryDTO> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query(value = SUMMARY + " WHERE t.walletAddress = :walletAddress" + NEWEST_FIRST,
+            countQuery = "SELECT COUNT(t) FROM DappTransaction t WHERE t.walletAddress = :walletAddress")
+    Page<TransactionSummaryDTO> findSummariesByWalletAddress(
+            @Param("walletAddress") String walletAddress, Pageable pageable);
+
+    @Query(value = SUMMARY + " WHERE t.status = :status" + NEWEST_FIRST,
+            countQuery = "SELECT COUNT(t) FROM DappTransaction t WHERE t.status = :status")
+    Page<TransactionSummaryDTO> findSummariesByStatus(
+            @Param("status") DappTransaction.TransactionStatus status, Pageable pageable);
+
+    @Query(value = SUMMARY + " WHERE t.type = :type" + NEWEST_FIRST,
+            countQuery = "SELECT COUNT(t) FROM DappTransaction t WHERE t.type = :type")
+    Page<TransactionSummaryDTO> findSummariesByType(
+            @Param("type") DappTransaction.TransactionType type, Pageable pageable);
+
+    @Query(value = SUMMARY + " WHERE t.type = :type AND t.status = :status" + NEWEST_FIRST,
+            countQuery = "SELECT COUNT(t) FROM DappTransaction t WHERE t.type = :type AND t.status = :status")
+    Page<TransactionSummaryDTO> findSummariesByTypeAndStatus(
+            @Param("type") DappTransaction.TransactionType type,
+            @Param("status") DappTransaction.TransactionStatus status,
+            Pageable pageable);
+
+    /*
+     * Keyset listings, newest first. Each returns the rows strictly after the (timestamp, id)
+     * cursor, so a slice costs the same at any depth and never needs a count query. The
+     * redundant bound on timestamp lets the planner skip the newer monthly partitions.
+     */
+    String KEYSET_AFTER = "t.timestamp <= :timestamp AND (t.timestamp, t.id) < (:timestamp, :id) " +
+            "ORDER BY t.timestamp DESC, t.id DESC";
+
+    @Query(SUMMARY + " WHERE t.userId = :userId AND " + KEYSET_AFTER)
+    Slice<TransactionSummaryDTO> findByUserIdAfter(
+            @Param("userId") Long userId,
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    @Query(SUMMARY + " WHERE t.walletAddress = :walletAddress AND " + KEYSET_AFTER)
+    Slice<TransactionSummaryDTO> findByWalletAddressAfter(
+            @Param("walletAddress") String walletAddress,
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    @Query("SELECT t FROM DappTransaction t WHERE t.userId = :userId AND t.network = :network AND " + KEYSET_AFTER)
+    Slice<DappTransaction> findByUserIdAndNetworkAfter(
+            @Param("userId") Long userId,
+            @Param("network") String network,
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("id") Long id,
+            Pageable pageable);
+
+    interface AnalyticsAggregate {
+        String getType();
+        String getStatus();
+        Long getTransactionCount();
+        BigDecimal getGasSpent();
+        BigDecimal getGasPriceSum();
+        Long getConfirmationSeconds();
+        Long getConfirmationCount();
+        Long getMinConfirmationSeconds();
+        Long getMaxConfirmationSeconds();
+    }
+
+    /**
+     * Aggregates, per type and status, the transactions of a window that the day rollups do not
+     * cover: everything outside the whole days [fullStart, fullEnd), plus transactions inside
+     * them that were not counted yet. Returns at most one row per type and status.
+     */
+    @Query(value = "SELECT type AS type, status AS status, COUNT(*) AS transactionCount, " +
+            "COALESCE(SUM(gas_price * gas_limit), 0) AS gasSpent, " +
+            "COALESCE(SUM(gas_price), 0) AS gasPriceSum, " +
+            "CAST(COALESCE(SUM(seconds), 0) AS bigint) AS confirmationSeconds, " +
+            "COUNT(seconds) AS confirmationCount, " +
+            "MIN(seconds) AS minConfirmationSeconds, MAX(seconds) AS maxConfirmationSeconds " +
+            "FROM (SELECT type, status, gas_price, gas_limit, " +
+            "CASE WHEN status = 'CONFIRMED' AND completed_at IS NOT NULL " +
+            "THEN CAST(EXTRACT(EPOCH FROM (completed_at - created_at)) AS bigint) END AS seconds " +
+            "FROM dapp_transaction WHERE user_id = :userId AND network = :network " +
+            "AND created_at >= :startDate AND created_at <= :endDate " +
+            "AND (created_at < :fullStart OR created_at >= :fullEnd OR rollup_status IS NULL)) t " +
+            "GROUP BY type, status", nativeQuery = true)
+    List<AnalyticsAggregate> aggregateUnrolledInWindow(
+            @Param("userId") Long userId,
+            @Param("network") String network,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            @Param("fullStart") LocalDateTime fullStart,
+            @Param("fullEnd") LocalDateTime fullEnd);
+
+    @Query("SELECT t.id FROM DappTransaction t WHERE t.rollupStatus IS NULL AND t.status IN :statuses")
+    List<Long> findUncountedIds(
+            @Param("statuses") Collection<DappTransaction.TransactionStatus> statuses,
+            Pageable pageable);
+
+    @Query("SELECT t.id FROM DappTransaction t WHERE t.rollupStatus IS NOT NULL AND t.rollupStatus <> t.status")
+    List<Long> findMiscountedIds(Pageable pageable);
+
+    String SEARCH_FILTER = "(:userId IS NULL OR t.userId = :userId) AND " +
             "(:network IS NULL OR t.network = :network) AND " +
             "(:status IS NULL OR t.status = :status) AND " +
             "(:type IS NULL OR t.type = :type) AND " +
@@ -39,7 +164,22 @@ public interface DappTransactionRepository extends JpaRepository<DappTransaction
             "(:endDate IS NULL OR t.timestamp <= :endDate) AND " +
             "(:minValue IS NULL OR t.value >= :minValue) AND " +
             "(:maxValue IS NULL OR t.value <= :maxValue) AND " +
-            "(:walletAddress IS NULL OR t.walletAddress = :walletAddress)")
+            "(:walletAddress IS NULL OR t.walletAddress = :walletAddress)";
+
+    // Prefix match on the lowercase identifier columns; each range is served by a
+    // (user_id, column) index and the ranges are combined with a bitmap OR
+    String QUERY_FILTER = "t.userId = :userId AND (" +
+            "(t.transactionHashLc >= :prefix AND t.transactionHashLc < :prefixEnd) OR " +
+            "(t.walletAddressLc >= :prefix AND t.walletAddressLc < :prefixEnd) OR " +
+            "(t.contractAddressLc >= :prefix AND t.contractAddressLc < :prefixEnd))";
+
+    String ANALYTICS_ROW = "SELECT new com.web3platform.wallet_service.dto.TransactionAnalyticsRow(" +
+            "t.type, t.status, t.gasPrice, t.gasLimit, t.timestamp, t.completedAt) FROM DappTransaction t WHERE ";
+
+    // Rows are pulled from a server-side cursor in chunks of this size
+    String STREAM_FETCH_SIZE = "1000";
+
+    @Query("SELECT t FROM DappTransaction t WHERE " + SEARCH_FILTER)
     Page<DappTransaction> searchTransactions(
             @Param("userId") Long userId,
             @Param("network") String network,
@@ -59,13 +199,257 @@ public interface DappTransactionRepository extends JpaRepository<DappTransaction
     @Query("SELECT DISTINCT t.dappName FROM DappTransaction t WHERE t.userId = :userId")
     List<String> findUserDapps(@Param("userId") Long userId);
 
-    @Query("SELECT t FROM DappTransaction t WHERE " +
-            "t.userId = :userId AND " +
-            "LOWER(t.transactionHash) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-            "LOWER(t.walletAddress) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
-            "LOWER(t.contractAddress) LIKE LOWER(CONCAT('%', :query, '%'))")
+    @Query("SELECT t FROM DappTransaction t WHERE " + QUERY_FILTER)
     Page<DappTransaction> searchTransactionsByQuery(
             @Param("userId") Long userId,
-            @Param("query") String query,
+            @Param("prefix") String prefix,
+            @Param("prefixEnd") String prefixEnd,
             Pageable pageable);
+
+    /*
+     * Full-range analytics inputs. These must be consumed inside a transaction and closed;
+     * memory stays constant however many rows match.
+     */
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(ANALYTICS_ROW + "t.userId = :userId AND t.network = :network")
+    Stream<TransactionAnalyticsRow> streamAnalyticsRows(
+            @Param("userId") Long userId,
+            @Param("network") String network);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(ANALYTICS_ROW + SEARCH_FILTER)
+    Stream<TransactionAnalyticsRow> streamSearchAnalyticsRows(
+            @Param("userId") Long userId,
+            @Param("network") String network,
+            @Param("status") DappTransaction.TransactionStatus status,
+            @Param("type") DappTransaction.TransactionType type,
+            @Param("dappName") String dappName,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            @Param("minValue") BigDecimal minValue,
+            @Param("maxValue") BigDecimal maxValue,
+            @Param("walletAddress") String walletAddress);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(ANALYTICS_ROW + QUERY_FILTER)
+    Stream<TransactionAnalyticsRow> streamQueryAnalyticsRows(
+            @Param("userId") Long userId,
+            @Param("prefix") String prefix,
+            @Param("prefixEnd") String prefixEnd);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query("SELECT new com.web3platform.wallet_service.dto.TransactionSeriesRow(" +
+            "t.id, t.timestamp, t.network, t.dappName, t.status, t.gasPrice, t.gasLimit, t.value) " +
+            "FROM DappTransaction t WHERE t.userId = :userId ORDER BY t.id")
+    Stream<TransactionSeriesRow> streamSeriesRows(@Param("userId") Long userId);
+
+    // Exports read further ahead per round trip, they always consume every row
+    String EXPORT_FETCH_SIZE = "5000";
+
+    /**
+     * A user's transactions after the cursor, newest first, optionally on one network. Backs
+     * the history export, which resumes from the cursor of the last row a client received.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT new com.web3platform.wallet_service.dto.TransactionExportRow(" +
+            "t.id, t.timestamp, t.completedAt, t.type, t.status, t.network, t.dappName, t.transactionHash, " +
+            "t.walletAddress, t.fromAddress, t.toAddress, t.contractAddress, t.token, t.amount, t.value, " +
+            "t.gasPrice, t.gasLimit, t.blockNumber) " +
+            "FROM DappTransaction t WHERE t.userId = :userId AND (:network IS NULL OR t.network = :network) AND " +
+            KEYSET_AFTER)
+    Stream<TransactionExportRow> streamExportRows(
+            @Param("userId") Long userId,
+            @Param("network") String network,
+            @Param("timestamp") LocalDateTime timestamp,
+            @Param("id") Long id);
+
+    /**
+     * Confirms the given pending transactions whose block is at or below the height and returns
+     * the ids it confirmed. Only ids whose block the caller verified against the canonical chain
+     * may be passed, a row recorded in a block that was reorged out must be re-queued instead.
+     */
+    @Transactional
+    @Query(value = "UPDATE dapp_transaction SET status = 'CONFIRMED' " +
+            "WHERE id IN (:ids) AND network = :network AND status = 'PENDING' " +
+            "AND block_number IS NOT NULL AND block_number <= :height " +
+            "RETURNING id", nativeQuery = true)
+    List<Long> confirmMinedUpToBlock(
+            @Param("ids") Collection<Long> ids,
+            @Param("network") String network,
+            @Param("height") Long height);
+
+    /**
+     * Confirms the given transactions that are still pending and returns the ids it confirmed,
+     * so a row another node already moved on is neither overwritten nor reported again.
+     */
+    @Transactional
+    @Query(value = "UPDATE dapp_transaction SET status = 'CONFIRMED' " +
+            "WHERE id IN (:ids) AND network = :network AND status = 'PENDING' " +
+            "RETURNING id", nativeQuery = true)
+    List<Long> confirmPending(
+            @Param("ids") Collection<Long> ids,
+            @Param("network") String network);
+
+    long countByStatus(DappTransaction.TransactionStatus status);
+
+    interface InFlightTransaction {
+        Long getId();
+        String getTransactionHash();
+        String getNetwork();
+        Long getUserId();
+        DappTransaction.TransactionStatus getStatus();
+        Long getBlockNumber();
+        String getBlockHash();
+        LocalDateTime getTimestamp();
+    }
+
+    List<InFlightTransaction> findByStatusIn(Collection<DappTransaction.TransactionStatus> statuses);
+
+    List<InFlightTransaction> findInFlightByIdIn(Collection<Long> ids);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE DappTransaction t SET t.transactionHash = :transactionHash, " +
+            "t.transactionHashLc = LOWER(:transactionHash), " +
+            "t.blockNumber = :blockNumber, t.blockHash = :blockHash WHERE t.id = :id")
+    int updateBlockReference(
+            @Param("id") Long id,
+            @Param("transactionHash") String transactionHash,
+            @Param("blockNumber") Long blockNumber,
+            @Param("blockHash") String blockHash);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE DappTransaction t SET t.status = :status WHERE t.id IN :ids")
+    int updateStatus(
+            @Param("ids") Collection<Long> ids,
+            @Param("status") DappTransaction.TransactionStatus status);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE DappTransaction t SET t.status = :status, t.errorMessage = :errorMessage WHERE t.id IN :ids")
+    int updateStatus(
+            @Param("ids") Collection<Long> ids,
+            @Param("status") DappTransaction.TransactionStatus status,
+            @Param("errorMessage") String errorMessage);
+
+    interface RetryCandidate {
+        Long getId();
+        Integer getRetryCount();
+        LocalDateTime getNextAttemptAt();
+    }
+
+    @Query("SELECT t.id AS id, t.retryCount AS retryCount, t.nextAttemptAt AS nextAttemptAt " +
+            "FROM DappTransaction t WHERE t.status = :status AND " +
+            "(t.retryCount IS NULL OR t.retryCount < :maxRetries)")
+    List<RetryCandidate> findRetryCandidates(
+            @Param("status") DappTransaction.TransactionStatus status,
+            @Param("maxRetries") int maxRetries);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE DappTransaction t SET t.nextAttemptAt = :nextAttemptAt " +
+            "WHERE t.id = :id AND t.nextAttemptAt IS NULL")
+    int scheduleRetry(
+            @Param("id") Long id,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE DappTransaction t SET t.status = :pending, t.nextAttemptAt = NULL, " +
+            "t.retryCount = COALESCE(t.retryCount, 0) + 1 " +
+            "WHERE t.id = :id AND t.status = :failed AND t.nextAttemptAt = :nextAttemptAt")
+    int claimRetry(
+            @Param("id") Long id,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+            @Param("failed") DappTransaction.TransactionStatus failed,
+            @Param("pending") DappTransaction.TransactionStatus pending);
+
+    @Query("SELECT t.id AS id, t.retryCount AS retryCount, t.nextAttemptAt AS nextAttemptAt " +
+            "FROM DappTransaction t WHERE t.status = :status AND " +
+            "t.blockNumber IS NULL AND t.nonce IS NOT NULL AND t.transactionHash IS NOT NULL AND " +
+            // A replacement re-signs the stored calldata, rows submitted without it are never replaced
+            "t.inputData IS NOT NULL AND " +
+            "(t.retryCount IS NULL OR t.retryCount < :maxRetries)")
+    List<RetryCandidate> findReplacementCandidates(
+            @Param("status") DappTransaction.TransactionStatus status,
+            @Param("maxRetries") int maxRetries);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE DappTransaction t SET t.nextAttemptAt = NULL, " +
+            "t.retryCount = COALESCE(t.retryCount, 0) + 1 " +
+            "WHERE t.id = :id AND t.status = :pending AND t.blockNumber IS NULL AND " +
+            "t.nextAttemptAt = :nextAttemptAt AND t.leaseOwner = :nodeId")
+    int claimReplacement(
+            @Param("id") Long id,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+            @Param("pending") DappTransaction.TransactionStatus pending,
+            @Param("nodeId") String nodeId);
+
+    /**
+     * Fills the lowercase search columns of rows written before they existed, one batch at a
+     * time starting after the given id. Returns the ids it updated.
+     */
+    @Transactional
+    @Query(value = "UPDATE dapp_transaction SET " +
+            "transaction_hash_lc = LOWER(transaction_hash), " +
+            "wallet_address_lc = LOWER(wallet_address), " +
+            "contract_address_lc = LOWER(contract_address) " +
+            "WHERE id IN (SELECT id FROM dapp_transaction WHERE wallet_address_lc IS NULL AND id > :lastId " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id", nativeQuery = true)
+    List<Long> backfillSearchColumns(@Param("lastId") long lastId, @Param("limit") int limit);
+
+    interface LeasedTransaction {
+        Long getId();
+        String getNetwork();
+    }
+
+    @Transactional
+    @Query(value = "UPDATE dapp_transaction SET lease_owner = :owner, lease_expires_at = :expiresAt " +
+            "WHERE id IN (SELECT id FROM dapp_transaction " +
+            "WHERE status = 'PENDING' AND (lease_owner IS NULL OR lease_expires_at < :now) " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id AS id, network AS network", nativeQuery = true)
+    List<LeasedTransaction> claimPendingLeases(
+            @Param("owner") String owner,
+            @Param("expiresAt") LocalDateTime expiresAt,
+            @Param("now") LocalDateTime now,
+            @Param("limit") int limit);
+
+    @Transactional
+    @Query(value = "UPDATE dapp_transaction SET lease_owner = :owner, lease_expires_at = :expiresAt " +
+            "WHERE id = :id AND status = 'PENDING' AND (lease_owner IS NULL OR lease_expires_at < :now) " +
+            "RETURNING id AS id, network AS network", nativeQuery = true)
+    List<LeasedTransaction> claimLease(
+            @Param("id") Long id,
+            @Param("owner") String owner,
+            @Param("expiresAt") LocalDateTime expiresAt,
+            @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Query(value = "UPDATE dapp_transaction SET lease_expires_at = :expiresAt " +
+            "WHERE lease_owner = :owner AND status = 'PENDING' " +
+            "RETURNING id AS id, network AS network", nativeQuery = true)
+    List<LeasedTransaction> renewLeases(
+            @Param("owner") String owner,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Transactional
+    @Query(value = "UPDATE dapp_transaction SET lease_owner = NULL, lease_expires_at = NULL " +
+            "WHERE id IN (SELECT id FROM dapp_transaction " +
+            "WHERE lease_owner = :owner AND status = 'PENDING' " +
+            "ORDER BY id DESC LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            "RETURNING id AS id, network AS network", nativeQuery = true)
+    List<LeasedTransaction> releaseLeases(
+            @Param("owner") String owner,
+            @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE dapp_transaction SET lease_owner = NULL, lease_expires_at = NULL " +
+            "WHERE lease_owner = :owner", nativeQuery = true)
+    int releaseAllLeases(@Param("owner") String owner);
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.web3platform.wallet_service.repository;
+
+import com.web3platform.wallet_service.model.MonitorNode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface MonitorNodeRepository extends JpaRepository<MonitorNode, String> {
+    long countByLastHeartbeatAfter(LocalDateTime since);
+
+    @Modifying
+    @Transactional
+    long deleteByLastHeartbeatBefore(LocalDateTime before);
+}
@@ -0,0 +1,28 @@
+package com.web3platform.wallet_service.repository;
+
+import com.web3platform.wallet_service.model.DappTransaction;
+import com.web3platform.wallet_service.model.TransactionReplacement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TransactionReplacementRepository extends JpaRepository<TransactionReplacement, Long> {
+    List<TransactionReplacement> findByTransactionIdOrderByIdAsc(Long transactionId);
+
+    interface ReplacedHash {
+        Long getTransactionId();
+        String getTransactionHash();
+    }
+
+    List<ReplacedHash> findByTransactionIdIn(Collection<Long> transactionIds);
+
+    @Query("SELECT r.transactionId AS transactionId, r.transactionHash AS transactionHash " +
+            "FROM TransactionReplacement r, DappTransaction t " +
+            "WHERE r.transactionId = t.id AND t.status IN :statuses")
+    List<ReplacedHash> findReplacedHashes(@Param("statuses") Collection<DappTransaction.TransactionStatus> statuses);
+}
@@ -0,0 +1,94 @@
+package com.web3platform.wallet_service.repository;
+
+import com.web3platform.wallet_service.model.TransactionRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TransactionRollupRepository extends JpaRepository<TransactionRollup, Long> {
+
+    String MERGE_BUCKET = "ON CONFLICT (user_id, network, day, type) DO UPDATE SET " +
+            "transaction_count = transaction_rollup.transaction_count + EXCLUDED.transaction_count, " +
+            "confirmed_count = transaction_rollup.confirmed_count + EXCLUDED.confirmed_count, " +
+            "failed_count = transaction_rollup.failed_count + EXCLUDED.failed_count, " +
+            "gas_spent = transaction_rollup.gas_spent + EXCLUDED.gas_spent, " +
+            "gas_price_sum = transaction_rollup.gas_price_sum + EXCLUDED.gas_price_sum, " +
+            "confirmation_seconds = transaction_rollup.confirmation_seconds + EXCLUDED.confirmation_seconds, " +
+            "confirmation_count = transaction_rollup.confirmation_count + EXCLUDED.confirmation_count, " +
+            "min_confirmation_seconds = LEAST(transaction_rollup.min_confirmation_seconds, EXCLUDED.min_confirmation_seconds), " +
+            "max_confirmation_seconds = GREATEST(transaction_rollup.max_confirmation_seconds, EXCLUDED.max_confirmation_seconds)";
+
+    String BUCKET_COLUMNS = "INSERT INTO transaction_rollup (user_id, network, day, type, " +
+            "transaction_count, confirmed_count, failed_count, gas_spent, gas_price_sum, " +
+            "confirmation_seconds, confirmation_count, min_confirmation_seconds, max_confirmation_seconds) ";
+
+    List<TransactionRollup> findByUserIdAndNetworkAndDayBetween(
+            Long userId, String network, LocalDate startDay, LocalDate endDay);
+
+    interface CountedLatency {
+        String getNetwork();
+        String getDappName();
+        Long getMillis();
+    }
+
+    /**
+     * Marks the given terminal transactions as counted and adds them to their day buckets in
+     * the same statement, so a transaction is counted once no matter how often it is passed in.
+     * Confirmation time is only measured when the caller observed the transition itself; the
+     * measured latencies of the transactions counted by this call are returned.
+     */
+    @Query(value = "WITH completed AS (" +
+            "UPDATE dapp_transaction SET rollup_status = status, " +
+            "completed_at = CASE WHEN :measure THEN CAST(:now AS timestamp) END " +
+            "WHERE id IN (:ids) AND rollup_status IS NULL " +
+            "AND status IN ('CONFIRMED', 'FAILED', 'CANCELLED', 'REVERTED') " +
+            "RETURNING user_id, network, dapp_name, type, status, created_at, completed_at, gas_price, gas_limit), " +
+            "measured AS (SELECT c.*, CASE WHEN c.status = 'CONFIRMED' AND c.completed_at IS NOT NULL " +
+            "THEN CAST(EXTRACT(EPOCH FROM (c.completed_at - c.created_at)) * 1000 AS bigint) END AS millis " +
+            "FROM completed c), " +
+            "merged AS (" + BUCKET_COLUMNS +
+            "SELECT user_id, network, CAST(created_at AS date), type, COUNT(*), " +
+            "COUNT(*) FILTER (WHERE status = 'CONFIRMED'), " +
+            "COUNT(*) FILTER (WHERE status = 'FAILED'), " +
+            "COALESCE(SUM(gas_price * gas_limit), 0), COALESCE(SUM(gas_price), 0), " +
+            "COALESCE(SUM(millis / 1000), 0), COUNT(millis), MIN(millis / 1000), MAX(millis / 1000) " +
+            "FROM measured GROUP BY user_id, network, CAST(created_at AS date), type " +
+            MERGE_BUCKET + " RETURNING 1) " +
+            "SELECT network AS network, dapp_name AS dappName, millis AS millis " +
+            "FROM measured WHERE millis IS NOT NULL", nativeQuery = true)
+    List<CountedLatency> rollUp(
+            @Param("ids") Collection<Long> ids,
+            @Param("now") LocalDateTime now,
+            @Param("measure") boolean measure);
+
+    /**
+     * Takes transactions whose status moved away from the one they were counted with (a failed
+     * transaction being retried) back out of their buckets. Only failed transactions are ever
+     * reopened, so confirmation-time stats are left untouched.
+     */
+    @Modifying
+    @Query(value = "WITH reopened AS (" +
+            "UPDATE dapp_transaction t SET rollup_status = NULL, completed_at = NULL " +
+            "FROM dapp_transaction prev " +
+            "WHERE prev.id = t.id AND t.id IN (:ids) " +
+            "AND t.rollup_status IS NOT NULL AND t.rollup_status <> t.status " +
+            "RETURNING t.user_id, t.network, t.type, prev.rollup_status AS counted, " +
+            "t.created_at, t.gas_price, t.gas_limit) " +
+            BUCKET_COLUMNS +
+            "SELECT user_id, network, CAST(created_at AS date), type, -COUNT(*), " +
+            "-COUNT(*) FILTER (WHERE counted = 'CONFIRMED'), " +
+            "-COUNT(*) FILTER (WHERE counted = 'FAILED'), " +
+            "-COALESCE(SUM(gas_price * gas_limit), 0), -COALESCE(SUM(gas_price), 0), " +
+            "0, 0, CAST(NULL AS bigint), CAST(NULL AS bigint) " +
+            "FROM reopened GROUP BY user_id, network, CAST(created_at AS date), type " +
+            MERGE_BUCKET, nativeQuery = true)
+    int retract(@Param("ids") Collection<Long> ids);
+}
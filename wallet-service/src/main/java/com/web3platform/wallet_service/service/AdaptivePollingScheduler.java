@@ -0,0 +1,201 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.config.NetworkConfig;
+import com.web3platform.wallet_service.util.HashedTimingWheel;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Service
+public class AdaptivePollingScheduler {
+
+    public enum PollState {
+        UNMINED,
+        MINED,
+        ERROR
+    }
+
+    @FunctionalInterface
+    public interface DueBatchHandler {
+        void onDue(String networkId, List<Long> transactionIds);
+    }
+
+    @Value("${monitor.scheduler.tick-ms:100}")
+    private long tickMillis;
+
+    @Value("${monitor.scheduler.min-interval-ms:250}")
+    private long minIntervalMillis;
+
+    @Value("${monitor.scheduler.max-interval-ms:60000}")
+    private long maxIntervalMillis;
+
+    private static final int WHEEL_SIZE = 1024;
+    private static final long AGE_BACKOFF_STEP = 60000; // one extra block interval per minute unmined
+    private static final int FINALITY_POLL_BLOCKS = 8;
+    private static final int ERROR_POLL_BLOCKS = 4;
+
+    private HashedTimingWheel<ScheduledCheck> wheel;
+    private final Map<Long, Long> deadlines = new ConcurrentHashMap<>();
+    private final Map<String, NetworkLane> lanes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "tx-monitor-ticker"));
+    private volatile DueBatchHandler handler;
+
+    public synchronized void start(DueBatchHandler batchHandler) {
+        if (handler != null) {
+            return;
+        }
+        handler = batchHandler;
+        wheel = new HashedTimingWheel<>(tickMillis, WHEEL_SIZE, System.currentTimeMillis());
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void schedule(Long transactionId, String networkId, long delayMillis) {
+        long deadline = System.currentTimeMillis() + Math.max(0, delayMillis);
+        deadlines.put(transactionId, deadline);
+        wheel.schedule(new ScheduledCheck(transactionId, networkId, deadline), deadline);
+    }
+
+    public void cancel(Long transactionId) {
+        deadlines.remove(transactionId);
+    }
+
+    public boolean isTracked(Long transactionId) {
+        return deadlines.containsKey(transactionId);
+    }
+
+    public int getTrackedCount() {
+        return deadlines.size();
+    }
+
+    /**
+     * Derives the next check for a transaction from the network's block time, how long it has
+     * been in flight and what the previous check observed.
+     */
+    public long nextDelay(
+            NetworkConfig.NetworkProperties networkProps,
+            long ageMillis,
+            PollState state,
+            long remainingConfirmations) {
+        long blockMillis = Math.max(minIntervalMillis, (long) (networkProps.getBlockTime() * 1000));
+        long delay;
+        switch (state) {
+            case MINED:
+                if (networkProps.getConfirmationPolicy() != NetworkConfig.ConfirmationPolicy.DEPTH) {
+                    delay = blockMillis * FINALITY_POLL_BLOCKS;
+                } else {
+                    // Wake up when the threshold should have been reached
+                    delay = blockMillis * Math.max(1, remainingConfirmations);
+                }
+                break;
+            case ERROR:
+                delay = blockMillis * ERROR_POLL_BLOCKS;
+                break;
+            default:
+                // Fresh transactions are checked every block, stale ones progressively less often
+                delay = blockMillis * (1 + Math.max(0, ageMillis) / AGE_BACKOFF_STEP);
+        }
+        return Math.min(delay, maxIntervalMillis);
+    }
+
+    private void tick() {
+        try {
+            List<ScheduledCheck> expired = wheel.advance(System.currentTimeMillis());
+            if (expired.isEmpty()) {
+                return;
+            }
+
+            Map<String, List<Long>> dueByNetwork = new HashMap<>();
+            for (ScheduledCheck check : expired) {
+                // Rescheduled or cancelled checks leave stale entries behind in the wheel
+                Long deadline = deadlines.get(check.transactionId);
+                if (deadline == null || deadline != check.deadline) {
+                    continue;
+                }
+                dueByNetwork.computeIfAbsent(check.networkId, k -> new ArrayList<>()).add(check.transactionId);
+            }
+
+            dueByNetwork.forEach((networkId, ids) ->
+                    lanes.computeIfAbsent(networkId, NetworkLane::new).submit(ids));
+        } catch (Exception e) {
+            log.error("Error advancing transaction polling wheel", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        lanes.values().forEach(NetworkLane::shutdown);
+    }
+
+    private static class ScheduledCheck {
+        private final Long transactionId;
+        private final String networkId;
+        private final long deadline;
+
+        ScheduledCheck(Long transactionId, String networkId, long deadline) {
+            this.transactionId = transactionId;
+            this.networkId = networkId;
+            this.deadline = deadline;
+        }
+    }
+
+    /**
+     * Single worker per network. Due transactions accumulate while a batch is running and are
+     * drained together, so a slow RPC on one chain only delays that chain.
+     */
+    private class NetworkLane {
+        private final String networkId;
+        private final ExecutorService worker;
+        private final Set<Long> due = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean running = new AtomicBoolean(false);
+
+        NetworkLane(String networkId) {
+            this.networkId = networkId;
+            this.worker = Executors.newSingleThreadExecutor(
+                    runnable -> new Thread(runnable, "tx-monitor-" + networkId));
+        }
+
+        void submit(List<Long> transactionIds) {
+            due.addAll(transactionIds);
+            if (running.compareAndSet(false, true)) {
+                worker.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                List<Long> batch = new ArrayList<>(due);
+                due.removeAll(batch);
+                if (!batch.isEmpty()) {
+                    handler.onDue(networkId, batch);
+                }
+            } catch (Exception e) {
+                log.error("Error processing due transactions on network {}", networkId, e);
+            } finally {
+                running.set(false);
+                if (!due.isEmpty() && running.compareAndSet(false, true)) {
+                    worker.execute(this::drain);
+                }
+            }
+        }
+
+        void shutdown() {
+            worker.shutdownNow();
+        }
+    }
+}
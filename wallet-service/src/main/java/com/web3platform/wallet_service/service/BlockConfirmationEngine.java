@@ -0,0 +1,229 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.config.NetworkConfig;
+import com.web3platform.wallet_service.util.BlockHashRing;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.TransactionReceipt;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared chain-state reads for the transaction monitor. Heads and safe/finalized heights are
+ * cached per network for one block interval, so every batch and every strategy within that
+ * window shares a single lookup.
+ * Each new head also extends a per-network ring of canonical block hashes that mined
+ * transactions are checked against to detect reorgs.
+ */
+@Slf4j
+@Service
+public class BlockConfirmationEngine {
+
+    public enum ConfirmationState {
+        PENDING,
+        MINED,
+        CONFIRMED,
+        FAILED,
+        REORGED,
+        ERROR
+    }
+
+    @Value("${monitor.reorg.window-blocks:256}")
+    private int reorgWindowBlocks;
+
+    private final Map<String, BlockHead> heads = new ConcurrentHashMap<>();
+    private final Map<String, BlockHead> taggedHeights = new ConcurrentHashMap<>();
+    private final Map<String, BlockHashRing> canonicalChains = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the latest block number of a network. The head is fetched at most once per
+     * expected block interval; every caller within that window shares the cached value.
+     */
+    public long getCurrentHead(String networkId, Web3j web3j, NetworkConfig.NetworkProperties networkProps)
+            throws IOException {
+        long now = System.currentTimeMillis();
+        BlockHead cached = heads.get(networkId);
+        if (cached != null && now - cached.getFetchedAt() < (long) (networkProps.getBlockTime() * 1000)) {
+            return cached.getNumber();
+        }
+
+        long number = web3j.ethBlockNumber().send().getBlockNumber().longValue();
+        if (cached == null || cached.getNumber() != number) {
+            advanceCanonicalChain(networkId, web3j, number);
+        }
+        heads.put(networkId, new BlockHead(number, now));
+        return number;
+    }
+
+    /**
+     * Returns true when the block a transaction was mined in is no longer on the canonical
+     * chain. Blocks outside the tracked window are assumed canonical.
+     */
+    public boolean isReorged(String networkId, PendingTransactionIndex.TrackedTransaction transaction) {
+        BlockHashRing ring = canonicalChains.get(networkId);
+        if (ring == null || transaction.getBlockNumber() == null || transaction.getBlockHash() == null) {
+            return false;
+        }
+        String canonicalHash = ring.get(transaction.getBlockNumber());
+        return canonicalHash != null && !canonicalHash.equalsIgnoreCase(transaction.getBlockHash());
+    }
+
+    private void advanceCanonicalChain(String networkId, Web3j web3j, long head) throws IOException {
+        BlockHashRing ring = canonicalChains.computeIfAbsent(networkId, k -> new BlockHashRing(reorgWindowBlocks));
+        synchronized (ring) {
+            long highest = ring.getHighest();
+            // After a long pause only the blocks that still fit in the window are worth fetching
+            long from = highest < 0 ? head : Math.max(Math.min(highest + 1, head), head - ring.capacity() + 1);
+            for (long number = from; number <= head; number++) {
+                EthBlock.Block block = getBlock(web3j, number);
+                ring.put(number, block.getHash());
+                rewindToCommonAncestor(networkId, web3j, ring, number - 1, block.getParentHash());
+            }
+            // The new chain may be shorter than the one it replaced
+            ring.truncateAbove(head);
+        }
+    }
+
+    private void rewindToCommonAncestor(
+            String networkId,
+            Web3j web3j,
+            BlockHashRing ring,
+            long number,
+            String expectedHash) throws IOException {
+        int depth = 0;
+        String known = ring.get(number);
+        while (known != null && !known.equalsIgnoreCase(expectedHash)) {
+            EthBlock.Block block = getBlock(web3j, number);
+            ring.put(number, block.getHash());
+            depth++;
+            expectedHash = block.getParentHash();
+            known = ring.get(--number);
+        }
+        if (depth > 0) {
+            log.warn("Reorg of depth {} detected on {} down to block {}", depth, networkId, number + 1);
+        }
+    }
+
+    private EthBlock.Block getBlock(Web3j web3j, long number) throws IOException {
+        EthBlock.Block block = web3j.ethGetBlockByNumber(
+                DefaultBlockParameter.valueOf(BigInteger.valueOf(number)), false).send().getBlock();
+        if (block == null) {
+            throw new IOException("Node returned no block " + number);
+        }
+        return block;
+    }
+
+    /**
+     * Returns the number of a network's block under a tag such as "safe" or "finalized", cached
+     * for one expected block interval like the head.
+     */
+    public long getTaggedBlockNumber(
+            String networkId,
+            Web3j web3j,
+            NetworkConfig.NetworkProperties networkProps,
+            DefaultBlockParameterName tag) throws IOException {
+        String key = networkId + ":" + tag.getValue();
+        long now = System.currentTimeMillis();
+        BlockHead cached = taggedHeights.get(key);
+        if (cached != null && now - cached.getFetchedAt() < (long) (networkProps.getBlockTime() * 1000)) {
+            return cached.getNumber();
+        }
+
+        EthBlock.Block block = web3j.ethGetBlockByNumber(tag, false).send().getBlock();
+        if (block == null) {
+            throw new IOException("Node returned no " + tag.getValue() + " block");
+        }
+        long number = block.getNumber().longValue();
+        taggedHeights.put(key, new BlockHead(number, now));
+        return number;
+    }
+
+    /**
+     * Looks up the receipt of a transaction that has not been mined yet. Transactions replaced
+     * by fee are checked under every hash of their nonce; whichever one was mined becomes the
+     * transaction's hash. A successful receipt stamps the block reference onto the tracked
+     * transaction so it never has to be fetched again.
+     */
+    public ConfirmationUpdate resolveReceipt(PendingTransactionIndex.TrackedTransaction transaction, Web3j web3j) {
+        try {
+            TransactionReceipt receipt = null;
+            for (String hash : candidateHashes(transaction)) {
+                receipt = web3j.ethGetTransactionReceipt(hash)
+                        .send()
+                        .getTransactionReceipt()
+                        .orElse(null);
+                if (receipt != null) {
+                    break;
+                }
+            }
+
+            if (receipt == null) {
+                return new ConfirmationUpdate(transaction, ConfirmationState.PENDING, 0, false);
+            }
+
+            if (!receipt.getTransactionHash().equalsIgnoreCase(transaction.getTransactionHash())) {
+                log.info("Transaction {} was mined as replacement {}", transaction.getId(), receipt.getTransactionHash());
+                transaction.setTransactionHash(receipt.getTransactionHash());
+            }
+
+            if (!receipt.isStatusOK()) {
+                return new ConfirmationUpdate(transaction, ConfirmationState.FAILED, 0, false);
+            }
+
+            transaction.setBlockNumber(receipt.getBlockNumber().longValue());
+            transaction.setBlockHash(receipt.getBlockHash());
+            return new ConfirmationUpdate(transaction, ConfirmationState.MINED, 0, true);
+        } catch (Exception e) {
+            log.error("Error fetching receipt for transaction {}", transaction.getId(), e);
+            return new ConfirmationUpdate(transaction, ConfirmationState.ERROR, 0, false);
+        }
+    }
+
+    private List<String> candidateHashes(PendingTransactionIndex.TrackedTransaction transaction) {
+        List<String> replaced = transaction.getReplacedHashes();
+        if (replaced.isEmpty()) {
+            return Collections.singletonList(transaction.getTransactionHash());
+        }
+        // Latest broadcast first, it carries the highest fee
+        List<String> hashes = new ArrayList<>(replaced.size() + 1);
+        hashes.add(transaction.getTransactionHash());
+        for (int i = replaced.size() - 1; i >= 0; i--) {
+            if (!replaced.get(i).equalsIgnoreCase(transaction.getTransactionHash())) {
+                hashes.add(replaced.get(i));
+            }
+        }
+        return hashes;
+    }
+
+    @Data
+    public static class ChainSnapshot {
+        private final long head;
+        private final Long confirmedHeight; // highest block a strategy treats as final, if any
+    }
+
+    @Data
+    public static class ConfirmationUpdate {
+        private final PendingTransactionIndex.TrackedTransaction transaction;
+        private final ConfirmationState state;
+        private final long confirmations;
+        private final boolean newlyMined; // block reference resolved in this pass and not yet persisted
+    }
+
+    @Data
+    private static class BlockHead {
+        private final long number;
+        private final long fetchedAt;
+    }
+}
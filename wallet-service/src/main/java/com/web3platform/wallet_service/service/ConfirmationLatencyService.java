@@ -0,0 +1,190 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.model.ConfirmationLatencySketch;
+import com.web3platform.wallet_service.repository.ConfirmationLatencySketchRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+
+/**
+ * Confirmation-latency histograms per network, dapp and hour. Each node records into its own
+ * in-memory histograms and periodically persists them; percentiles for a window merge the
+ * stored histograms of every node and hour with this node's unflushed ones, so they cost one
+ * small query regardless of how many transactions were confirmed.
+ */
+@Slf4j
+@Service
+public class ConfirmationLatencyService {
+
+    public static final String NO_DAPP = "";
+
+    @Autowired
+    private ConfirmationLatencySketchRepository sketchRepository;
+
+    @Autowired
+    private TransactionLeaseManager leaseManager;
+
+    @Value("${latency.sketch.significant-digits:2}")
+    private int significantDigits;
+
+    private final Map<SketchKey, Histogram> buckets = new ConcurrentHashMap<>();
+    private final Set<SketchKey> dirty = ConcurrentHashMap.newKeySet();
+    // Buckets whose in-memory histogram already includes what this node stored before a restart
+    private final Set<SketchKey> restored = ConcurrentHashMap.newKeySet();
+
+    public void record(String network, String dappName, long latencyMillis) {
+        SketchKey key = new SketchKey(network, dappName != null ? dappName : NO_DAPP, bucketOf(LocalDateTime.now()));
+        Histogram histogram = buckets.computeIfAbsent(key, k -> new Histogram(significantDigits));
+        synchronized (histogram) {
+            histogram.recordValue(Math.max(0, latencyMillis));
+        }
+        dirty.add(key);
+    }
+
+    /**
+     * Confirmation-latency percentiles of a network, optionally narrowed to one dapp, over the
+     * hours overlapping [startDate, endDate].
+     */
+    public LatencyPercentiles getPercentiles(String network, String dappName, LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDateTime from = bucketOf(startDate);
+        List<ConfirmationLatencySketch> rows = dappName != null
+                ? sketchRepository.findByNetworkAndDappNameAndBucketStartBetween(network, dappName, from, endDate)
+                : sketchRepository.findByNetworkAndBucketStartBetween(network, from, endDate);
+
+        Histogram merged = new Histogram(significantDigits);
+        String nodeId = leaseManager.getNodeId();
+        for (ConfirmationLatencySketch row : rows) {
+            SketchKey key = new SketchKey(row.getNetwork(), row.getDappName(), row.getBucketStart());
+            if (nodeId.equals(row.getNodeId()) && restored.contains(key)) {
+                continue; // the in-memory copy is newer
+            }
+            try {
+                merged.add(decode(row.getHistogram()));
+            } catch (DataFormatException e) {
+                log.warn("Skipping unreadable latency sketch {}", row.getId(), e);
+            }
+        }
+        buckets.forEach((key, histogram) -> {
+            if (key.network.equals(network)
+                    && (dappName == null || key.dappName.equals(dappName))
+                    && !key.bucketStart.isBefore(from)
+                    && !key.bucketStart.isAfter(endDate)) {
+                synchronized (histogram) {
+                    merged.add(histogram);
+                }
+            }
+        });
+        return LatencyPercentiles.of(merged);
+    }
+
+    @Scheduled(fixedDelayString = "${latency.sketch.flush-ms:60000}")
+    public void flush() {
+        LocalDateTime now = LocalDateTime.now();
+        for (SketchKey key : new ArrayList<>(dirty)) {
+            dirty.remove(key);
+            Histogram histogram = buckets.get(key);
+            try {
+                if (!restored.contains(key)) {
+                    restore(key, histogram);
+                }
+                byte[] encoded;
+                synchronized (histogram) {
+                    encoded = encode(histogram);
+                }
+                sketchRepository.upsert(key.network, key.dappName, key.bucketStart, leaseManager.getNodeId(), encoded, now);
+            } catch (Exception e) {
+                dirty.add(key);
+                log.warn("Failed to persist latency sketch for {} {} {}", key.network, key.dappName, key.bucketStart, e);
+            }
+        }
+
+        // Keep the previous hour around for confirmations recorded across the boundary
+        LocalDateTime oldestKept = bucketOf(now).minusHours(1);
+        buckets.keySet().removeIf(key -> key.bucketStart.isBefore(oldestKept) && !dirty.contains(key));
+        restored.retainAll(buckets.keySet());
+    }
+
+    // The upsert replaces the stored copy, so samples this node persisted before it restarted
+    // are merged in before its first flush of the bucket
+    private void restore(SketchKey key, Histogram histogram) {
+        Optional<ConfirmationLatencySketch> stored = sketchRepository.findByNetworkAndDappNameAndBucketStartAndNodeId(
+                key.network, key.dappName, key.bucketStart, leaseManager.getNodeId());
+        if (stored.isPresent()) {
+            try {
+                Histogram previous = decode(stored.get().getHistogram());
+                synchronized (histogram) {
+                    histogram.add(previous);
+                }
+            } catch (DataFormatException e) {
+                log.warn("Replacing unreadable latency sketch {}", stored.get().getId(), e);
+            }
+        }
+        restored.add(key);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    static byte[] encode(Histogram histogram) {
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        return Arrays.copyOf(buffer.array(), length);
+    }
+
+    static Histogram decode(byte[] encoded) throws DataFormatException {
+        return Histogram.decodeFromCompressedByteBuffer(ByteBuffer.wrap(encoded), 0);
+    }
+
+    private static LocalDateTime bucketOf(LocalDateTime time) {
+        return time.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    @Data
+    private static class SketchKey {
+        private final String network;
+        private final String dappName;
+        private final LocalDateTime bucketStart;
+    }
+
+    @Data
+    public static class LatencyPercentiles {
+        private final long count;
+        private final double mean; // all values in milliseconds
+        private final long p50;
+        private final long p95;
+        private final long p99;
+        private final long max;
+
+        static LatencyPercentiles of(Histogram histogram) {
+            if (histogram.getTotalCount() == 0) {
+                return new LatencyPercentiles(0, 0, 0, 0, 0, 0);
+            }
+            return new LatencyPercentiles(
+                    histogram.getTotalCount(),
+                    histogram.getMean(),
+                    histogram.getValueAtPercentile(50),
+                    histogram.getValueAtPercentile(95),
+                    histogram.getValueAtPercentile(99),
+                    histogram.getMaxValue());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.config.NetworkConfig;
+import org.web3j.protocol.Web3j;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Decides when a mined transaction counts as confirmed on a network. The monitor pipeline
+ * picks the implementation matching {@link NetworkConfig.NetworkProperties#getConfirmationPolicy()}.
+ */
+public interface ConfirmationStrategy {
+
+    boolean supports(NetworkConfig.ConfirmationPolicy policy);
+
+    BlockConfirmationEngine.ChainSnapshot snapshot(
+            String networkId,
+            NetworkConfig.NetworkProperties networkProps,
+            Web3j web3j) throws IOException;
+
+    BlockConfirmationEngine.ConfirmationUpdate evaluate(
+            PendingTransactionIndex.TrackedTransaction transaction,
+            BlockConfirmationEngine.ChainSnapshot snapshot,
+            NetworkConfig.NetworkProperties networkProps,
+            boolean newlyMined);
+
+    /**
+     * Marks the transactions confirmed and returns the ids whose status actually changed, which
+     * the pipeline then counts in the rollups.
+     */
+    List<Long> persistConfirmed(
+            String networkId,
+            BlockConfirmationEngine.ChainSnapshot snapshot,
+            List<BlockConfirmationEngine.ConfirmationUpdate> confirmed);
+}
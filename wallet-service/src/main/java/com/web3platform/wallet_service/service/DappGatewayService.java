@@ -27,12 +27,18 @@ public class DappGatewayService {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private GasFeeEngine gasFeeEngine;
+
     @Value("${ethereum.rpc.url}")
     private String ethereumRpcUrl;
 
     @Value("${ethereum.chain.id}")
     private Long chainId;
 
+    @Value("${ethereum.network-id:ethereum}")
+    private String networkId;
+
     private final Web3j web3j;
     private final ContractGasProvider gasProvider;
 
@@ -71,9 +77,11 @@ public class DappGatewayService {
             BigInteger gasLimit = estimateGas(contractAddress, functionName, functionParams, value);
             transaction.setGasLimit(gasLimit.longValue());
 
-            // Get gas price
-            BigInteger gasPrice = web3j.ethGasPrice().send().getGasPrice();
-            transaction.setGasPrice(new BigDecimal(gasPrice));
+            // Get fees from the cached fee history
+            GasFeeEngine.FeeEstimate fees = gasFeeEngine.estimate(networkId, web3j);
+            transaction.setMaxFeePerGas(new BigDecimal(fees.getMaxFeePerGas()));
+            transaction.setMaxPriorityFeePerGas(new BigDecimal(fees.getMaxPriorityFeePerGas()));
+            transaction.setGasPrice(new BigDecimal(fees.getMaxFeePerGas()));
 
             // Get nonce
             BigInteger nonce = web3j.ethGetTransactionCount(credentials.getAddress(), org.web3j.protocol.core.DefaultBlockParameterName.LATEST)
@@ -95,7 +103,7 @@ public class DappGatewayService {
 
     public DappTransaction getTransactionStatus(String transactionHash) {
         try {
-            Optional<DappTransaction> transactionOpt = transactionRepository.findByTransactionHash(transactionHash);
+            Optional<DappTransaction> transactionOpt = transactionRepository.findFirstByTransactionHashOrderByTimestampDesc(transactionHash);
             if (transactionOpt.isPresent()) {
                 DappTransaction transaction = transactionOpt.get();
 
@@ -156,7 +164,8 @@ public class DappGatewayService {
 
     private String submitTransactionToNetwork(Credentials credentials, DappTransaction transaction) {
         // TODO: Implement transaction submission
-        // This should use Web3j's contract wrapper to submit the transaction
+        // This should use Web3j's contract wrapper to submit the transaction, and store the
+        // encoded calldata with transaction.setInputData so a stuck transaction can be replaced
         throw new UnsupportedOperationException("Transaction submission not implemented");
     }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.config.NetworkConfig;
+import com.web3platform.wallet_service.repository.DappTransactionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.web3j.protocol.Web3j;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Component
+public class DepthConfirmationStrategy implements ConfirmationStrategy {
+
+    @Autowired
+    private BlockConfirmationEngine confirmationEngine;
+
+    @Autowired
+    private DappTransactionRepository dappTransactionRepository;
+
+    @Override
+    public boolean supports(NetworkConfig.ConfirmationPolicy policy) {
+        return policy == NetworkConfig.ConfirmationPolicy.DEPTH;
+    }
+
+    @Override
+    public BlockConfirmationEngine.ChainSnapshot snapshot(
+            String networkId,
+            NetworkConfig.NetworkProperties networkProps,
+            Web3j web3j) throws IOException {
+        return new BlockConfirmationEngine.ChainSnapshot(
+                confirmationEngine.getCurrentHead(networkId, web3j, networkProps), null);
+    }
+
+    @Override
+    public BlockConfirmationEngine.ConfirmationUpdate evaluate(
+            PendingTransactionIndex.TrackedTransaction transaction,
+            BlockConfirmationEngine.ChainSnapshot snapshot,
+            NetworkConfig.NetworkProperties networkProps,
+            boolean newlyMined) {
+        // A freshly fetched receipt can be ahead of the cached head
+        long head = Math.max(snapshot.getHead(), transaction.getBlockNumber());
+        long confirmations = head - transaction.getBlockNumber();
+        BlockConfirmationEngine.ConfirmationState state = confirmations >= networkProps.getRequiredConfirmations()
+                ? BlockConfirmationEngine.ConfirmationState.CONFIRMED
+                : BlockConfirmationEngine.ConfirmationState.MINED;
+        return new BlockConfirmationEngine.ConfirmationUpdate(transaction, state, confirmations, newlyMined);
+    }
+
+    @Override
+    public List<Long> persistConfirmed(
+            String networkId,
+            BlockConfirmationEngine.ChainSnapshot snapshot,
+            List<BlockConfirmationEngine.ConfirmationUpdate> confirmed) {
+        List<Long> ids = confirmed.stream()
+                .map(update -> update.getTransaction().getId())
+                .collect(Collectors.toList());
+        return dappTransactionRepository.confirmPending(ids, networkId);
+    }
+}
@@ -0,0 +1,94 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.config.NetworkConfig;
+import com.web3platform.wallet_service.model.DappTransaction;
+import com.web3platform.wallet_service.repository.DappTransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Confirms transactions once their block is at or below the node's "safe" or "finalized" block.
+ * The batch's transactions under that height, all checked against the canonical chain by the
+ * pipeline, are confirmed with a single UPDATE per network.
+ */
+@Slf4j
+@Component
+public class FinalityConfirmationStrategy implements ConfirmationStrategy {
+
+    @Autowired
+    private BlockConfirmationEngine confirmationEngine;
+
+    @Autowired
+    private DappTransactionRepository dappTransactionRepository;
+
+    @Override
+    public boolean supports(NetworkConfig.ConfirmationPolicy policy) {
+        return policy == NetworkConfig.ConfirmationPolicy.SAFE
+                || policy == NetworkConfig.ConfirmationPolicy.FINALIZED;
+    }
+
+    @Override
+    public BlockConfirmationEngine.ChainSnapshot snapshot(
+            String networkId,
+            NetworkConfig.NetworkProperties networkProps,
+            Web3j web3j) throws IOException {
+        DefaultBlockParameterName tag = networkProps.getConfirmationPolicy() == NetworkConfig.ConfirmationPolicy.SAFE
+                ? DefaultBlockParameterName.SAFE
+                : DefaultBlockParameterName.FINALIZED;
+        return new BlockConfirmationEngine.ChainSnapshot(
+                confirmationEngine.getCurrentHead(networkId, web3j, networkProps),
+                confirmationEngine.getTaggedBlockNumber(networkId, web3j, networkProps, tag));
+    }
+
+    @Override
+    public BlockConfirmationEngine.ConfirmationUpdate evaluate(
+            PendingTransactionIndex.TrackedTransaction transaction,
+            BlockConfirmationEngine.ChainSnapshot snapshot,
+            NetworkConfig.NetworkProperties networkProps,
+            boolean newlyMined) {
+        long head = Math.max(snapshot.getHead(), transaction.getBlockNumber());
+        long confirmations = head - transaction.getBlockNumber();
+        BlockConfirmationEngine.ConfirmationState state = transaction.getBlockNumber() <= snapshot.getConfirmedHeight()
+                ? BlockConfirmationEngine.ConfirmationState.CONFIRMED
+                : BlockConfirmationEngine.ConfirmationState.MINED;
+        return new BlockConfirmationEngine.ConfirmationUpdate(transaction, state, confirmations, newlyMined);
+    }
+
+    @Override
+    public List<Long> persistConfirmed(
+            String networkId,
+            BlockConfirmationEngine.ChainSnapshot snapshot,
+            List<BlockConfirmationEngine.ConfirmationUpdate> confirmed) {
+        List<Long> unsaved = new ArrayList<>();
+        // Rows whose stored block hash the pipeline found on the canonical chain
+        List<Long> verified = new ArrayList<>();
+        for (BlockConfirmationEngine.ConfirmationUpdate update : confirmed) {
+            if (update.isNewlyMined()) {
+                // Not yet persisted with a block number, so the bulk update cannot see it
+                unsaved.add(update.getTransaction().getId());
+            } else {
+                verified.add(update.getTransaction().getId());
+            }
+        }
+
+        List<Long> confirmedIds = new ArrayList<>(unsaved);
+        if (!unsaved.isEmpty()) {
+            dappTransactionRepository.updateStatus(unsaved, DappTransaction.TransactionStatus.CONFIRMED);
+        }
+        if (!verified.isEmpty()) {
+            // The verified transactions at or below the tagged block are confirmed by one statement
+            List<Long> bulk = dappTransactionRepository.confirmMinedUpToBlock(
+                    verified, networkId, snapshot.getConfirmedHeight());
+            log.info("Confirmed {} transactions on {} up to block {}", bulk.size(), networkId, snapshot.getConfirmedHeight());
+            confirmedIds.addAll(bulk);
+        }
+        return confirmedIds;
+    }
+}
@@ -0,0 +1,191 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.config.NetworkConfig;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.response.EthFeeHistory;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * EIP-1559 fee estimates per network. eth_feeHistory is fetched at most once per block
+ * interval and every estimate in between is computed from the cached snapshot, so submitting
+ * or retrying a transaction costs no fee RPC of its own. Networks without a base fee fall back
+ * to a cached eth_gasPrice.
+ */
+@Slf4j
+@Service
+public class GasFeeEngine {
+
+    @Autowired
+    private NetworkConfig networkConfig;
+
+    @Value("${fee.history-blocks:20}")
+    private int historyBlocks;
+
+    @Value("${fee.reward-percentiles:10,50,90}")
+    private List<Double> rewardPercentiles;
+
+    @Value("${fee.default-percentile:50}")
+    private double defaultPercentile;
+
+    @Value("${fee.base-fee-multiplier:2}")
+    private int baseFeeMultiplier;
+
+    @Value("${fee.replacement-bump-percent:10}")
+    private int replacementBumpPercent;
+
+    private static final double DEFAULT_BLOCK_TIME = 12; // seconds, for chains missing from the network config
+
+    private final Map<String, FeeSnapshot> snapshots = new ConcurrentHashMap<>();
+
+    public FeeEstimate estimate(String networkId, Web3j web3j) throws IOException {
+        return estimate(networkId, web3j, defaultPercentile);
+    }
+
+    /**
+     * Returns fees whose priority fee is the median, over the recent blocks, of the tip paid at
+     * the given percentile. The max fee leaves room for the base fee to keep rising.
+     */
+    public FeeEstimate estimate(String networkId, Web3j web3j, double percentile) throws IOException {
+        FeeSnapshot snapshot = snapshot(networkId, web3j);
+        if (snapshot.isLegacy()) {
+            return new FeeEstimate(snapshot.getGasPrice(), snapshot.getGasPrice(), BigInteger.ZERO, true);
+        }
+        BigInteger priorityFee = snapshot.priorityFee(percentile);
+        BigInteger maxFee = snapshot.getNextBaseFee()
+                .multiply(BigInteger.valueOf(baseFeeMultiplier))
+                .add(priorityFee);
+        return new FeeEstimate(maxFee, priorityFee, snapshot.getNextBaseFee(), false);
+    }
+
+    /**
+     * Fees for a same-nonce replacement. Both caps are raised by at least the node's replacement
+     * bump over the previous attempt, so the replacement is accepted on the first submission.
+     */
+    public FeeEstimate replacement(
+            String networkId,
+            Web3j web3j,
+            BigInteger previousMaxFee,
+            BigInteger previousPriorityFee) throws IOException {
+        FeeEstimate current = estimate(networkId, web3j);
+        BigInteger priorityFee = current.getMaxPriorityFeePerGas()
+                .max(bump(previousPriorityFee, replacementBumpPercent));
+        BigInteger maxFee = current.getMaxFeePerGas()
+                .max(bump(previousMaxFee, replacementBumpPercent))
+                .max(current.getBaseFee().add(priorityFee));
+        return new FeeEstimate(maxFee, priorityFee, current.getBaseFee(), current.isLegacy());
+    }
+
+    /**
+     * Raises a fee by the given percentage, rounding up so integer division on the node side
+     * can never leave the result just under the threshold.
+     */
+    static BigInteger bump(BigInteger fee, int percent) {
+        if (fee == null || fee.signum() <= 0) {
+            return BigInteger.ZERO;
+        }
+        BigInteger[] quotient = fee.multiply(BigInteger.valueOf(100L + percent))
+                .divideAndRemainder(BigInteger.valueOf(100));
+        return quotient[1].signum() == 0 ? quotient[0] : quotient[0].add(BigInteger.ONE);
+    }
+
+    private FeeSnapshot snapshot(String networkId, Web3j web3j) throws IOException {
+        long now = System.currentTimeMillis();
+        FeeSnapshot cached = snapshots.get(networkId);
+        if (cached != null && now - cached.getFetchedAt() < blockMillis(networkId)) {
+            return cached;
+        }
+
+        EthFeeHistory.FeeHistory history = web3j
+                .ethFeeHistory(historyBlocks, DefaultBlockParameterName.LATEST, rewardPercentiles)
+                .send()
+                .getFeeHistory();
+        FeeSnapshot snapshot = history != null ? fromHistory(history, rewardPercentiles, now) : null;
+        if (snapshot == null) {
+            // Pre-London chain, fall back to the legacy gas price
+            BigInteger gasPrice = web3j.ethGasPrice().send().getGasPrice();
+            snapshot = new FeeSnapshot(now, true, gasPrice, BigInteger.ZERO, Collections.emptyMap());
+        }
+        snapshots.put(networkId, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Builds a snapshot from a fee history response, or returns null when the chain reports
+     * no base fee.
+     */
+    static FeeSnapshot fromHistory(EthFeeHistory.FeeHistory history, List<Double> percentiles, long fetchedAt) {
+        List<BigInteger> baseFees = history.getBaseFeePerGasRaw() != null ? history.getBaseFeePerGas() : null;
+        if (baseFees == null || baseFees.isEmpty() || baseFees.get(baseFees.size() - 1).signum() == 0) {
+            return null;
+        }
+
+        // The last entry is the base fee of the block after the newest one
+        BigInteger nextBaseFee = baseFees.get(baseFees.size() - 1);
+        List<List<BigInteger>> rewards = history.getRewardRaw() != null ? history.getReward() : Collections.emptyList();
+        Map<Double, BigInteger> priorityFees = new TreeMap<>();
+        for (int i = 0; i < percentiles.size(); i++) {
+            List<BigInteger> tips = new ArrayList<>(rewards.size());
+            for (List<BigInteger> blockRewards : rewards) {
+                if (blockRewards.size() > i) {
+                    tips.add(blockRewards.get(i));
+                }
+            }
+            Collections.sort(tips);
+            priorityFees.put(percentiles.get(i), tips.isEmpty() ? BigInteger.ZERO : tips.get(tips.size() / 2));
+        }
+        return new FeeSnapshot(fetchedAt, false, BigInteger.ZERO, nextBaseFee, priorityFees);
+    }
+
+    private long blockMillis(String networkId) {
+        NetworkConfig.NetworkProperties networkProps = networkConfig.getNetworks() != null
+                ? networkConfig.getNetworkProperties(networkId)
+                : null;
+        double blockTime = networkProps != null && networkProps.getBlockTime() > 0
+                ? networkProps.getBlockTime()
+                : DEFAULT_BLOCK_TIME;
+        return (long) (blockTime * 1000);
+    }
+
+    @Data
+    public static class FeeEstimate {
+        private final BigInteger maxFeePerGas;
+        private final BigInteger maxPriorityFeePerGas;
+        private final BigInteger baseFee;
+        private final boolean legacy; // maxFeePerGas is a plain gas price
+    }
+
+    @Data
+    static class FeeSnapshot {
+        private final long fetchedAt;
+        private final boolean legacy;
+        private final BigInteger gasPrice;
+        private final BigInteger nextBaseFee;
+        private final Map<Double, BigInteger> priorityFees; // median tip per reward percentile
+
+        BigInteger priorityFee(double percentile) {
+            BigInteger exact = priorityFees.get(percentile);
+            if (exact != null) {
+                return exact;
+            }
+            // Closest configured percentile
+            double closest = priorityFees.keySet().stream()
+                    .min((a, b) -> Double.compare(Math.abs(a - percentile), Math.abs(b - percentile)))
+                    .orElse(percentile);
+            return priorityFees.getOrDefault(closest, BigInteger.ZERO);
+        }
+    }
+}
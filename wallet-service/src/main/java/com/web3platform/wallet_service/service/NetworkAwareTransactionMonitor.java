@@ -1,23 +1,16 @@
 package com.web3platform.wallet_service.service;
 
 import com.web3platform.wallet_service.config.NetworkConfig;
-import com.web3platform.wallet_service.model.DappTransaction;
-import com.web3platform.wallet_service.repository.DappTransactionRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.web3j.protocol.Web3j;
-import org.web3j.protocol.core.methods.response.TransactionReceipt;
-import org.web3j.protocol.http.HttpService;
 
-import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -27,157 +20,101 @@ public class NetworkAwareTransactionMonitor {
     private NetworkConfig networkConfig;
 
     @Autowired
-    private DappTransactionRepository dappTransactionRepository;
+    private AdaptivePollingScheduler pollingScheduler;
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private TransactionLeaseManager leaseManager;
 
-    private final Map<String, Web3j> web3jClients = new ConcurrentHashMap<>();
-    private static final String WS_TRANSACTION_TOPIC = "/topic/transactions/";
+    @Autowired
+    private TransactionMonitorPipeline pipeline;
 
-    @Scheduled(fixedDelay = 10000) // Check every 10 seconds
-    public void monitorPendingTransactions() {
-        try {
-            List<DappTransaction> pendingTransactions = dappTransactionRepository
-                    .findByStatus(DappTransaction.TransactionStatus.PENDING);
+    @Autowired
+    private TransactionStatusNotifier statusNotifier;
 
-            if (pendingTransactions.isEmpty()) {
-                return;
+    @Autowired
+    private PendingTransactionIndex pendingIndex;
+
+    @PostConstruct
+    public void startScheduler() {
+        pollingScheduler.start(this::monitorNetworkTransactions);
+        // Only transactions leased to this node are polled; leases arrive and leave on rebalance
+        leaseManager.addListener(new TransactionLeaseManager.LeaseListener() {
+            @Override
+            public void onLeasesAcquired(Map<Long, String> networksById) {
+                // Another node may have changed these rows while it held the lease
+                pendingIndex.refresh(networksById.keySet());
+                // First check right away, the wheel takes over from there
+                networksById.forEach((id, networkId) -> pollingScheduler.schedule(id, networkId, 0));
+                log.info("Acquired {} transaction leases ({} tracked)",
+                        networksById.size(), pollingScheduler.getTrackedCount());
             }
 
-            log.info("Monitoring {} pending transactions", pendingTransactions.size());
-
-            // Group transactions by network
-            Map<String, List<DappTransaction>> transactionsByNetwork = pendingTransactions.stream()
-                    .collect(Collectors.groupingBy(DappTransaction::getNetwork));
+            @Override
+            public void onLeasesReleased(Set<Long> transactionIds) {
+                transactionIds.forEach(id -> {
+                    pollingScheduler.cancel(id);
+                    statusNotifier.forget(id);
+                });
+            }
+        });
+    }
 
-            // Monitor transactions for each network
-            transactionsByNetwork.forEach(this::monitorNetworkTransactions);
-        } catch (Exception e) {
-            log.error("Error monitoring transactions", e);
+    private void monitorNetworkTransactions(String networkId, List<Long> transactionIds) {
+        NetworkConfig.NetworkProperties networkProps = networkConfig.getNetworkProperties(networkId);
+        if (networkProps == null) {
+            log.error("Network not supported: {}", networkId);
+            transactionIds.forEach(pollingScheduler::cancel);
+            return;
         }
-    }
 
-    private void monitorNetworkTransactions(String networkId, List<DappTransaction> transactions) {
         try {
-            NetworkConfig.NetworkProperties networkProps = networkConfig.getNetworkProperties(networkId);
-            if (networkProps == null) {
-                log.error("Network not supported: {}", networkId);
-                return;
-            }
-
-            Web3j web3j = getWeb3jClient(networkId, networkProps.getRpcUrl());
-
-            List<CompletableFuture<Void>> monitoringFutures = transactions.stream()
-                    .map(transaction -> monitorTransaction(transaction, web3j, networkProps))
-                    .collect(Collectors.toList());
-
-            CompletableFuture.allOf(monitoringFutures.toArray(new CompletableFuture[0])).join();
+            TransactionMonitorPipeline.PipelineResult result = pipeline.process(networkId, networkProps, transactionIds);
+            result.getDropped().forEach(id -> {
+                pollingScheduler.cancel(id);
+                statusNotifier.forget(id);
+            });
+            result.getUpdates().forEach(update -> scheduleNextCheck(update, networkId, networkProps));
         } catch (Exception e) {
             log.error("Error monitoring transactions for network {}", networkId, e);
+            // Drop whatever this pass changed in memory but may not have written
+            pendingIndex.refresh(transactionIds);
+            long retryDelay = pollingScheduler.nextDelay(networkProps, 0, AdaptivePollingScheduler.PollState.ERROR, 0);
+            transactionIds.stream()
+                    .filter(pollingScheduler::isTracked)
+                    .forEach(id -> pollingScheduler.schedule(id, networkId, retryDelay));
         }
     }
 
-    private CompletableFuture<Void> monitorTransaction(
-            DappTransaction transaction,
-            Web3j web3j,
+    private void scheduleNextCheck(
+            BlockConfirmationEngine.ConfirmationUpdate update,
+            String networkId,
             NetworkConfig.NetworkProperties networkProps) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                String txHash = transaction.getTransactionHash();
-                if (txHash == null) {
-                    log.warn("Transaction {} has no hash", transaction.getId());
-                    return;
-                }
-
-                TransactionReceipt receipt = web3j.ethGetTransactionReceipt(txHash)
-                        .send()
-                        .getTransactionReceipt()
-                        .orElse(null);
-
-                if (receipt == null) {
-                    // Transaction not yet mined
-                    notifyTransactionStatus(transaction, "pending",
-                            String.format("Transaction is pending confirmation on %s", networkProps.getName()));
-                    return;
-                }
-
-                if (!receipt.isStatusOK()) {
-                    // Transaction failed
-                    transaction.setStatus(DappTransaction.TransactionStatus.FAILED);
-                    transaction.setErrorMessage("Transaction reverted");
-                    dappTransactionRepository.save(transaction);
-                    notifyTransactionStatus(transaction, "failed", "Transaction failed");
-                    return;
-                }
-
-                // Get current block number
-                long currentBlock = web3j.ethBlockNumber().send().getBlockNumber().longValue();
-                long confirmationBlocks = currentBlock - receipt.getBlockNumber().longValue();
-
-                if (confirmationBlocks >= networkProps.getRequiredConfirmations()) {
-                    // Transaction confirmed
-                    transaction.setStatus(DappTransaction.TransactionStatus.CONFIRMED);
-                    transaction.setBlockNumber(receipt.getBlockNumber().longValue());
-                    transaction.setBlockHash(receipt.getBlockHash());
-                    dappTransactionRepository.save(transaction);
-                    notifyTransactionStatus(transaction, "confirmed",
-                            String.format("Transaction confirmed on %s", networkProps.getName()));
-                } else {
-                    // Transaction mined but not enough confirmations
-                    double estimatedTimeRemaining = (networkProps.getRequiredConfirmations() - confirmationBlocks)
-                            * networkProps.getBlockTime();
-                    notifyTransactionStatus(transaction, "mined",
-                            String.format("Transaction mined on %s, waiting for confirmations (%d/%d, ~%.1f seconds remaining)",
-                                    networkProps.getName(),
-                                    confirmationBlocks,
-                                    networkProps.getRequiredConfirmations(),
-                                    estimatedTimeRemaining));
-                }
-
-            } catch (Exception e) {
-                log.error("Error monitoring transaction {} on network {}",
-                        transaction.getId(), networkProps.getName(), e);
-                notifyTransactionStatus(transaction, "error",
-                        "Error monitoring transaction: " + e.getMessage());
-            }
-        });
-    }
-
-    private Web3j getWeb3jClient(String networkId, String rpcUrl) {
-        return web3jClients.computeIfAbsent(networkId, k -> Web3j.build(new HttpService(rpcUrl)));
-    }
-
-    private void notifyTransactionStatus(DappTransaction transaction, String status, String message) {
-        try {
-            TransactionStatusUpdate update = new TransactionStatusUpdate(
-                    transaction.getId(),
-                    transaction.getTransactionHash(),
-                    status,
-                    message,
-                    System.currentTimeMillis(),
-                    transaction.getNetwork()
-            );
-
-            // Send WebSocket notification
-            String topic = WS_TRANSACTION_TOPIC + transaction.getUserId();
-            messagingTemplate.convertAndSend(topic, update);
-
-            // Log status update
-            log.info("Transaction {} status update on {}: {} - {}",
-                    transaction.getId(), transaction.getNetwork(), status, message);
-        } catch (Exception e) {
-            log.error("Error sending transaction status update", e);
+        PendingTransactionIndex.TrackedTransaction transaction = update.getTransaction();
+        long ageMillis = transaction.getTimestamp() != null
+                ? Duration.between(transaction.getTimestamp(), LocalDateTime.now()).toMillis()
+                : 0;
+
+        switch (update.getState()) {
+            case CONFIRMED:
+            case FAILED:
+                pollingScheduler.cancel(transaction.getId());
+                return;
+            case MINED:
+                pollingScheduler.schedule(transaction.getId(), networkId, pollingScheduler.nextDelay(
+                        networkProps, ageMillis, AdaptivePollingScheduler.PollState.MINED,
+                        networkProps.getRequiredConfirmations() - update.getConfirmations()));
+                return;
+            case REORGED:
+                // Re-queue right away so the new receipt is picked up on the next tick
+                pollingScheduler.schedule(transaction.getId(), networkId, 0);
+                return;
+            case ERROR:
+                pollingScheduler.schedule(transaction.getId(), networkId, pollingScheduler.nextDelay(
+                        networkProps, ageMillis, AdaptivePollingScheduler.PollState.ERROR, 0));
+                return;
+            default:
+                pollingScheduler.schedule(transaction.getId(), networkId, pollingScheduler.nextDelay(
+                        networkProps, ageMillis, AdaptivePollingScheduler.PollState.UNMINED, 0));
         }
     }
-
-    @lombok.Data
-    public static class TransactionStatusUpdate {
-        private final Long transactionId;
-        private final String transactionHash;
-        private final String status;
-        private final String message;
-        private final long timestamp;
-        private final String network;
-    }
-}
\ No newline at end of file
+}
@@ -211,8 +211,10 @@ public class OpenSeaService {
                 transaction.setContractAddress(openSeaConfig.getSeaportAddress());
                 transaction.setFunctionName("fulfillOrder");
                 transaction.setTransactionHash(receipts.get(i).getTransactionHash());
-                transactions.add(dappTransactionRepository.save(transaction));
+                transactions.add(transaction);
             }
+            // One transaction, inserted in JDBC batches
+            transactions = dappTransactionRepository.saveAll(transactions);
 
             // Update batch transaction
             batchTransaction.setStatus(DappTransaction.TransactionStatus.CONFIRMED);
@@ -357,8 +359,10 @@ public class OpenSeaService {
                 transaction.setContractAddress(openSeaConfig.getSeaportAddress());
                 transaction.setFunctionName("fulfillOrder");
                 transaction.setTransactionHash(receipts.get(i).getTransactionHash());
-                transactions.add(dappTransactionRepository.save(transaction));
+                transactions.add(transaction);
             }
+            // One transaction, inserted in JDBC batches
+            transactions = dappTransactionRepository.saveAll(transactions);
 
             // Update batch transaction
             batchTransaction.setStatus(DappTransaction.TransactionStatus.CONFIRMED);
@@ -0,0 +1,193 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.model.DappTransaction;
+import com.web3platform.wallet_service.repository.DappTransactionRepository;
+import com.web3platform.wallet_service.repository.TransactionReplacementRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact in-memory view of in-flight transactions, holding only what the monitor needs.
+ * It is hydrated once at startup with a narrow projection, kept current by entity saves and
+ * monitor transitions, and refreshed for transactions whose lease moves to this node.
+ */
+@Slf4j
+@Service
+public class PendingTransactionIndex {
+
+    public static final Set<DappTransaction.TransactionStatus> IN_FLIGHT = EnumSet.of(
+            DappTransaction.TransactionStatus.PENDING,
+            DappTransaction.TransactionStatus.SUBMITTED);
+
+    @Autowired
+    private DappTransactionRepository dappTransactionRepository;
+
+    @Autowired
+    private TransactionReplacementRepository replacementRepository;
+
+    private final Map<Long, TrackedTransaction> transactions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void hydrate() {
+        dappTransactionRepository.findByStatusIn(IN_FLIGHT).forEach(this::put);
+        replacementRepository.findReplacedHashes(IN_FLIGHT).forEach(this::addReplacedHash);
+        log.info("Loaded {} in-flight transactions into the pending index", transactions.size());
+    }
+
+    public TrackedTransaction get(Long transactionId) {
+        return transactions.get(transactionId);
+    }
+
+    public int size() {
+        return transactions.size();
+    }
+
+    /**
+     * Reloads the given transactions from the database, e.g. after their lease moved to this
+     * node and another node may have changed them in the meantime.
+     */
+    public void refresh(Collection<Long> transactionIds) {
+        if (transactionIds.isEmpty()) {
+            return;
+        }
+        List<Long> missing = new ArrayList<>(transactionIds);
+        for (DappTransactionRepository.InFlightTransaction row : dappTransactionRepository.findInFlightByIdIn(transactionIds)) {
+            missing.remove(row.getId());
+            if (IN_FLIGHT.contains(row.getStatus())) {
+                put(row);
+            } else {
+                transactions.remove(row.getId());
+            }
+        }
+        missing.forEach(transactions::remove);
+        replacementRepository.findByTransactionIdIn(transactionIds).forEach(this::addReplacedHash);
+    }
+
+    /**
+     * Applies a saved entity, called for every insert and update of a transaction. The entity
+     * is copied at flush time and applied once the write commits.
+     */
+    public void onSaved(DappTransaction transaction) {
+        if (transaction.getId() == null) {
+            return;
+        }
+        Long id = transaction.getId();
+        if (!IN_FLIGHT.contains(transaction.getStatus())) {
+            afterCommit(() -> transactions.remove(id));
+            return;
+        }
+        TrackedTransaction tracked = new TrackedTransaction(
+                id,
+                transaction.getTransactionHash(),
+                transaction.getNetwork(),
+                transaction.getUserId(),
+                transaction.getStatus(),
+                transaction.getBlockNumber(),
+                transaction.getBlockHash(),
+                transaction.getTimestamp());
+        afterCommit(() -> transactions.compute(id, (key, previous) -> {
+            if (previous != null) {
+                tracked.setReplacedHashes(previous.getReplacedHashes());
+            }
+            return tracked;
+        }));
+    }
+
+    /**
+     * Records a hash that was replaced by a same-nonce rebroadcast; it stays a candidate for
+     * inclusion until one hash of the chain is mined.
+     */
+    public void onReplaced(Long transactionId, String replacedHash) {
+        TrackedTransaction tracked = transactions.get(transactionId);
+        if (tracked != null) {
+            tracked.addReplacedHash(replacedHash);
+        }
+    }
+
+    public void remove(Long transactionId) {
+        transactions.remove(transactionId);
+    }
+
+    // A rolled back write never reaches the index
+    private void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    private void addReplacedHash(TransactionReplacementRepository.ReplacedHash row) {
+        onReplaced(row.getTransactionId(), row.getTransactionHash());
+    }
+
+    private void put(DappTransactionRepository.InFlightTransaction row) {
+        transactions.put(row.getId(), new TrackedTransaction(
+                row.getId(),
+                row.getTransactionHash(),
+                row.getNetwork(),
+                row.getUserId(),
+                row.getStatus(),
+                row.getBlockNumber(),
+                row.getBlockHash(),
+                row.getTimestamp()));
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TrackedTransaction {
+        private Long id;
+        private String transactionHash;
+        private String network;
+        private Long userId;
+        private DappTransaction.TransactionStatus status;
+        private Long blockNumber;
+        private String blockHash;
+        private LocalDateTime timestamp;
+        private List<String> replacedHashes = Collections.emptyList(); // earlier broadcasts of the same nonce
+
+        public TrackedTransaction(
+                Long id,
+                String transactionHash,
+                String network,
+                Long userId,
+                DappTransaction.TransactionStatus status,
+                Long blockNumber,
+                String blockHash,
+                LocalDateTime timestamp) {
+            this(id, transactionHash, network, userId, status, blockNumber, blockHash, timestamp,
+                    Collections.emptyList());
+        }
+
+        synchronized void addReplacedHash(String hash) {
+            if (hash != null && !replacedHashes.contains(hash)) {
+                List<String> hashes = new ArrayList<>(replacedHashes);
+                hashes.add(hash);
+                replacedHashes = Collections.unmodifiableList(hashes);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.repository.DappTransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fills the lowercase search columns of transactions written before they existed, in small
+ * batches so the table is never locked for long. Stops once a pass finds nothing left.
+ */
+@Slf4j
+@Component
+public class SearchColumnBackfill {
+
+    @Autowired
+    private DappTransactionRepository dappTransactionRepository;
+
+    @Value("${search.backfill.batch-size:5000}")
+    private int batchSize;
+
+    private volatile boolean done;
+    private long backfilled;
+    private long lastId;
+
+    @Scheduled(initialDelay = 30000, fixedDelay = 1000)
+    public void backfill() {
+        if (done) {
+            return;
+        }
+        List<Long> updated = dappTransactionRepository.backfillSearchColumns(lastId, batchSize);
+        backfilled += updated.size();
+        if (!updated.isEmpty()) {
+            lastId = Collections.max(updated);
+        } else if (lastId > 0) {
+            // One more pass from the start picks up rows that were locked when walked past
+            lastId = 0;
+        } else {
+            done = true;
+            if (backfilled > 0) {
+                log.info("Backfilled search columns of {} transactions", backfilled);
+            }
+        }
+    }
+}
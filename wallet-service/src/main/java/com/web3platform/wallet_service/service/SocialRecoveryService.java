@@ -70,13 +70,16 @@ public class SocialRecoveryService {
                 recoveryShare.setTotalShares(trusteeEmails.size());
                 recoveryShare.setUserId(userId);
 
-                recoveryShares.add(shareRepository.save(recoveryShare));
+                recoveryShares.add(recoveryShare);
+            }
+            recoveryShares = shareRepository.saveAll(recoveryShares);
 
-                // Send email notification to trustee
+            // Send email notification to trustees
+            for (SocialRecoveryShare recoveryShare : recoveryShares) {
                 emailService.sendShareCreationNotification(
-                    trusteeEmails.get(i),
+                    recoveryShare.getTrusteeEmail(),
                     walletAddress,
-                    share.getX(),
+                    recoveryShare.getShareIndex(),
                     trusteeEmails.size()
                 );
             }
@@ -0,0 +1,225 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.dto.TransactionAnalyticsRow;
+import com.web3platform.wallet_service.model.DappTransaction;
+import com.web3platform.wallet_service.model.TransactionRollup;
+import com.web3platform.wallet_service.repository.DappTransactionRepository;
+import com.web3platform.wallet_service.util.Int128Sum;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.Collector;
+
+/**
+ * Single-pass accumulator behind every analytics figure. Amounts are summed as integer wei in
+ * 128-bit accumulators and types are counted by ordinal, so adding a transaction allocates
+ * nothing; BigDecimals are only created once, in {@link #toAnalytics()}. Accumulators are
+ * mergeable, so partial results over disjoint sets can be combined in any order. Failed counts
+ * only FAILED transactions, and the average gas price is taken over all transactions, as the
+ * analytics have always reported them.
+ */
+public class TransactionAnalyticsAccumulator {
+
+    private static final DappTransaction.TransactionType[] TYPES = DappTransaction.TransactionType.values();
+    private static final int ETHER_DECIMALS = 18;
+
+    private long count;
+    private long confirmed;
+    private long failed;
+    private final Int128Sum gasSpent = new Int128Sum(); // wei
+    private final Int128Sum gasPriceSum = new Int128Sum(); // wei
+    private long confirmationSeconds;
+    private long confirmationCount;
+    private long minConfirmationSeconds = Long.MAX_VALUE;
+    private long maxConfirmationSeconds = Long.MIN_VALUE;
+    private final long[] typeCounts = new long[TYPES.length];
+
+    public static Collector<DappTransaction, TransactionAnalyticsAccumulator, TransactionAnalyticsService.TransactionAnalytics> collector() {
+        return Collector.of(
+                TransactionAnalyticsAccumulator::new,
+                TransactionAnalyticsAccumulator::add,
+                TransactionAnalyticsAccumulator::merge,
+                TransactionAnalyticsAccumulator::toAnalytics);
+    }
+
+    /**
+     * Adds one transaction. Negative gas values and confirmation times mean unknown.
+     */
+    public void add(
+            DappTransaction.TransactionType type,
+            DappTransaction.TransactionStatus status,
+            long gasPriceWei,
+            long gasLimit,
+            long confirmationTimeSeconds) {
+        count++;
+        if (status == DappTransaction.TransactionStatus.CONFIRMED) {
+            confirmed++;
+            if (confirmationTimeSeconds >= 0) {
+                confirmationSeconds += confirmationTimeSeconds;
+                confirmationCount++;
+                minConfirmationSeconds = Math.min(minConfirmationSeconds, confirmationTimeSeconds);
+                maxConfirmationSeconds = Math.max(maxConfirmationSeconds, confirmationTimeSeconds);
+            }
+        } else if (status == DappTransaction.TransactionStatus.FAILED) {
+            failed++;
+        }
+        if (gasPriceWei >= 0) {
+            gasPriceSum.add(gasPriceWei);
+            if (gasLimit >= 0) {
+                gasSpent.addProduct(gasPriceWei, gasLimit);
+            }
+        }
+        if (type != null) {
+            typeCounts[type.ordinal()]++;
+        }
+    }
+
+    public void add(DappTransaction tx) {
+        long seconds = -1;
+        // Only known for transactions that were counted in a rollup when they completed
+        if (tx.getCompletedAt() != null && tx.getTimestamp() != null) {
+            seconds = Duration.between(tx.getTimestamp(), tx.getCompletedAt()).getSeconds();
+        }
+        add(tx.getType(),
+                tx.getStatus(),
+                toWei(tx.getGasPrice()),
+                tx.getGasLimit() != null ? tx.getGasLimit() : -1,
+                seconds);
+    }
+
+    public void add(TransactionAnalyticsRow row) {
+        long seconds = -1;
+        if (row.getCompletedAt() != null && row.getTimestamp() != null) {
+            seconds = Duration.between(row.getTimestamp(), row.getCompletedAt()).getSeconds();
+        }
+        add(row.getType(),
+                row.getStatus(),
+                toWei(row.getGasPrice()),
+                row.getGasLimit() != null ? row.getGasLimit() : -1,
+                seconds);
+    }
+
+    public void add(TransactionRollup rollup) {
+        if (rollup.getTransactionCount() <= 0) {
+            return;
+        }
+        count += rollup.getTransactionCount();
+        confirmed += rollup.getConfirmedCount();
+        failed += rollup.getFailedCount();
+        gasSpent.add(rollup.getGasSpent());
+        gasPriceSum.add(rollup.getGasPriceSum());
+        confirmationSeconds += rollup.getConfirmationSeconds();
+        confirmationCount += rollup.getConfirmationCount();
+        if (rollup.getMinConfirmationSeconds() != null) {
+            minConfirmationSeconds = Math.min(minConfirmationSeconds, rollup.getMinConfirmationSeconds());
+        }
+        if (rollup.getMaxConfirmationSeconds() != null) {
+            maxConfirmationSeconds = Math.max(maxConfirmationSeconds, rollup.getMaxConfirmationSeconds());
+        }
+        if (rollup.getType() != null) {
+            typeCounts[rollup.getType().ordinal()] += rollup.getTransactionCount();
+        }
+    }
+
+    public void add(DappTransactionRepository.AnalyticsAggregate aggregate) {
+        long rows = aggregate.getTransactionCount() != null ? aggregate.getTransactionCount() : 0;
+        if (rows <= 0) {
+            return;
+        }
+        DappTransaction.TransactionStatus status = DappTransaction.TransactionStatus.valueOf(aggregate.getStatus());
+        count += rows;
+        if (status == DappTransaction.TransactionStatus.CONFIRMED) {
+            confirmed += rows;
+        } else if (status == DappTransaction.TransactionStatus.FAILED) {
+            failed += rows;
+        }
+        gasSpent.add(aggregate.getGasSpent());
+        gasPriceSum.add(aggregate.getGasPriceSum());
+        if (aggregate.getConfirmationCount() != null && aggregate.getConfirmationCount() > 0) {
+            confirmationSeconds += aggregate.getConfirmationSeconds();
+            confirmationCount += aggregate.getConfirmationCount();
+            minConfirmationSeconds = Math.min(minConfirmationSeconds, aggregate.getMinConfirmationSeconds());
+            maxConfirmationSeconds = Math.max(maxConfirmationSeconds, aggregate.getMaxConfirmationSeconds());
+        }
+        typeCounts[DappTransaction.TransactionType.valueOf(aggregate.getType()).ordinal()] += rows;
+    }
+
+    public TransactionAnalyticsAccumulator merge(TransactionAnalyticsAccumulator other) {
+        count += other.count;
+        confirmed += other.confirmed;
+        failed += other.failed;
+        gasSpent.add(other.gasSpent);
+        gasPriceSum.add(other.gasPriceSum);
+        confirmationSeconds += other.confirmationSeconds;
+        confirmationCount += other.confirmationCount;
+        minConfirmationSeconds = Math.min(minConfirmationSeconds, other.minConfirmationSeconds);
+        maxConfirmationSeconds = Math.max(maxConfirmationSeconds, other.maxConfirmationSeconds);
+        for (int i = 0; i < typeCounts.length; i++) {
+            typeCounts[i] += other.typeCounts[i];
+        }
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public TransactionAnalyticsService.TransactionAnalytics toAnalytics() {
+        TransactionAnalyticsService.TransactionAnalytics analytics = new TransactionAnalyticsService.TransactionAnalytics();
+        if (count == 0) {
+            return analytics;
+        }
+
+        analytics.setTotalTransactions((int) count);
+        analytics.setSuccessfulTransactions((int) confirmed);
+        analytics.setFailedTransactions((int) failed);
+
+        BigDecimal spent = new BigDecimal(gasSpent.toBigInteger());
+        analytics.setTotalGasSpent(spent);
+        analytics.setAverageGasPrice(new BigDecimal(gasPriceSum.toBigInteger())
+                .divide(BigDecimal.valueOf(count), 9, RoundingMode.HALF_UP));
+
+        if (confirmationCount > 0) {
+            analytics.setAverageConfirmationTime((double) confirmationSeconds / confirmationCount);
+            analytics.setMinConfirmationTime(minConfirmationSeconds);
+            analytics.setMaxConfirmationTime(maxConfirmationSeconds);
+        }
+
+        Map<DappTransaction.TransactionType, Long> distribution = new EnumMap<>(DappTransaction.TransactionType.class);
+        for (int i = 0; i < typeCounts.length; i++) {
+            if (typeCounts[i] > 0) {
+                distribution.put(TYPES[i], typeCounts[i]);
+            }
+        }
+        analytics.setTransactionTypeDistribution(distribution);
+
+        // wei to ether is an exact scale shift
+        BigDecimal totalNetworkFees = new BigDecimal(gasSpent.toBigInteger(), ETHER_DECIMALS);
+        analytics.setTotalNetworkFees(totalNetworkFees);
+        analytics.setAverageNetworkFee(
+                totalNetworkFees.divide(BigDecimal.valueOf(count), ETHER_DECIMALS, RoundingMode.HALF_UP));
+
+        analytics.setSuccessRate(
+                BigDecimal.valueOf(confirmed)
+                        .divide(BigDecimal.valueOf(count), 4, RoundingMode.HALF_UP)
+                        .multiply(BigDecimal.valueOf(100)));
+        return analytics;
+    }
+
+    /**
+     * Whole wei as a long, or -1 when unknown. Integral values stored without a fraction are
+     * read without allocating.
+     */
+    static long toWei(BigDecimal amount) {
+        if (amount == null) {
+            return -1;
+        }
+        if (amount.scale() <= 0 || amount.signum() == 0) {
+            return amount.longValue();
+        }
+        return amount.setScale(0, RoundingMode.DOWN).longValue();
+    }
+}
@@ -1,20 +1,27 @@
 package com.web3platform.wallet_service.service;
 
+import com.web3platform.wallet_service.dto.TransactionAnalyticsRow;
 import com.web3platform.wallet_service.model.DappTransaction;
 import com.web3platform.wallet_service.repository.DappTransactionRepository;
+import com.web3platform.wallet_service.repository.TransactionRollupRepository;
+import com.web3platform.wallet_service.util.TransactionCursor;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -23,128 +30,119 @@ public class TransactionAnalyticsService {
     @Autowired
     private DappTransactionRepository dappTransactionRepository;
 
+    @Autowired
+    private TransactionRollupRepository rollupRepository;
+
+    private static final Pattern HEX = Pattern.compile("[0-9a-f]+");
+
+    @Transactional(readOnly = true)
     public TransactionHistory getTransactionHistory(Long userId, String network, Pageable pageable) {
+        return getTransactionHistory(userId, network, pageable, false);
+    }
+
+    /**
+     * With fullRangeAnalytics the analytics describe every transaction of the user on the
+     * network rather than only the returned page.
+     */
+    @Transactional(readOnly = true)
+    public TransactionHistory getTransactionHistory(
+            Long userId, String network, Pageable pageable, boolean fullRangeAnalytics) {
         Page<DappTransaction> transactions = dappTransactionRepository
-                .findByUserIdAndNetworkOrderByCreatedAtDesc(userId, network, pageable);
+                .findByUserIdAndNetworkOrderByTimestampDesc(userId, network, pageable);
+
+        TransactionAnalytics analytics;
+        if (fullRangeAnalytics) {
+            try (Stream<TransactionAnalyticsRow> rows = dappTransactionRepository.streamAnalyticsRows(userId, network)) {
+                analytics = accumulate(rows);
+            }
+        } else {
+            analytics = calculateAnalytics(transactions.getContent());
+        }
 
         return new TransactionHistory(
                 transactions.getContent(),
                 transactions.getTotalElements(),
                 transactions.getTotalPages(),
-                calculateAnalytics(transactions.getContent())
+                analytics
         );
     }
 
-    public TransactionAnalytics getAnalytics(Long userId, String network, LocalDateTime startDate, LocalDateTime endDate) {
-        List<DappTransaction> transactions = dappTransactionRepository
-                .findByUserIdAndNetworkAndCreatedAtBetweenOrderByCreatedAtDesc(
-                        userId, network, startDate, endDate);
-
-        return calculateAnalytics(transactions);
-    }
-
-    private TransactionAnalytics calculateAnalytics(List<DappTransaction> transactions) {
-        if (transactions.isEmpty()) {
-            return new TransactionAnalytics();
+    /**
+     * Keyset variant of the history: the transactions after the given cursor, or the newest
+     * ones when it is null. Analytics cover the returned slice unless fullRangeAnalytics is set.
+     */
+    @Transactional(readOnly = true)
+    public TransactionHistorySlice getTransactionHistory(
+            Long userId, String network, String cursor, int size, boolean fullRangeAnalytics) {
+        TransactionCursor after = TransactionCursor.decode(cursor);
+        Slice<DappTransaction> slice = dappTransactionRepository.findByUserIdAndNetworkAfter(
+                userId, network, after.getTimestamp(), after.getId(), PageRequest.of(0, size));
+        List<DappTransaction> transactions = slice.getContent();
+
+        TransactionAnalytics analytics;
+        if (fullRangeAnalytics) {
+            try (Stream<TransactionAnalyticsRow> rows = dappTransactionRepository.streamAnalyticsRows(userId, network)) {
+                analytics = accumulate(rows);
+            }
+        } else {
+            analytics = calculateAnalytics(transactions);
         }
 
-        TransactionAnalytics analytics = new TransactionAnalytics();
-
-        // Calculate basic metrics
-        analytics.setTotalTransactions(transactions.size());
-        analytics.setSuccessfulTransactions(
-                (int) transactions.stream()
-                        .filter(tx -> tx.getStatus() == DappTransaction.TransactionStatus.CONFIRMED)
-                        .count()
-        );
-        analytics.setFailedTransactions(
-                (int) transactions.stream()
-                        .filter(tx -> tx.getStatus() == DappTransaction.TransactionStatus.FAILED)
-                        .count()
-        );
-
-        // Calculate gas metrics
-        BigDecimal totalGasSpent = transactions.stream()
-                .filter(tx -> tx.getGasPrice() != null && tx.getGasLimit() != null)
-                .map(tx -> tx.getGasPrice().multiply(BigDecimal.valueOf(tx.getGasLimit())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        analytics.setTotalGasSpent(totalGasSpent);
-        analytics.setAverageGasPrice(
-                calculateAverageGasPrice(transactions)
-        );
+        return new TransactionHistorySlice(transactions, TransactionCursor.next(slice), slice.hasNext(), analytics);
+    }
 
-        // Calculate confirmation time metrics
-        List<Duration> confirmationTimes = transactions.stream()
-                .filter(tx -> tx.getStatus() == DappTransaction.TransactionStatus.CONFIRMED)
-                .filter(tx -> tx.getCreatedAt() != null && tx.getUpdatedAt() != null)
-                .map(tx -> Duration.between(tx.getCreatedAt(), tx.getUpdatedAt()))
-                .collect(Collectors.toList());
-
-        if (!confirmationTimes.isEmpty()) {
-            analytics.setAverageConfirmationTime(
-                    confirmationTimes.stream()
-                            .mapToLong(Duration::toSeconds)
-                            .average()
-                            .orElse(0.0)
-            );
-            analytics.setMinConfirmationTime(
-                    confirmationTimes.stream()
-                            .mapToLong(Duration::toSeconds)
-                            .min()
-                            .orElse(0)
-            );
-            analytics.setMaxConfirmationTime(
-                    confirmationTimes.stream()
-                            .mapToLong(Duration::toSeconds)
-                            .max()
-                            .orElse(0)
-            );
+    /**
+     * Whole days inside the window are summed from the daily rollups. The partial days at its
+     * edges, and transactions not counted in a rollup yet, are aggregated by the database.
+     */
+    @Transactional(readOnly = true)
+    public TransactionAnalytics getAnalytics(Long userId, String network, LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDate firstFullDay = startDate.toLocalTime().equals(LocalTime.MIDNIGHT)
+                ? startDate.toLocalDate()
+                : startDate.toLocalDate().plusDays(1);
+        LocalDate lastFullDay = endDate.toLocalTime().equals(LocalTime.MAX)
+                ? endDate.toLocalDate()
+                : endDate.toLocalDate().minusDays(1);
+
+        TransactionAnalyticsAccumulator totals = new TransactionAnalyticsAccumulator();
+        LocalDateTime fullStart = startDate;
+        LocalDateTime fullEnd = startDate;
+        if (!firstFullDay.isAfter(lastFullDay)) {
+            rollupRepository.findByUserIdAndNetworkAndDayBetween(userId, network, firstFullDay, lastFullDay)
+                    .forEach(totals::add);
+            fullStart = firstFullDay.atStartOfDay();
+            fullEnd = lastFullDay.plusDays(1).atStartOfDay();
         }
+        dappTransactionRepository.aggregateUnrolledInWindow(userId, network, startDate, endDate, fullStart, fullEnd)
+                .forEach(totals::add);
 
-        // Calculate transaction type distribution
-        Map<DappTransaction.TransactionType, Long> typeDistribution = transactions.stream()
-                .collect(Collectors.groupingBy(
-                        DappTransaction::getTransactionType,
-                        Collectors.counting()
-                ));
-        analytics.setTransactionTypeDistribution(typeDistribution);
-
-        // Calculate network fee metrics
-        BigDecimal totalNetworkFees = transactions.stream()
-                .filter(tx -> tx.getGasPrice() != null && tx.getGasLimit() != null)
-                .map(tx -> tx.getGasPrice()
-                        .multiply(BigDecimal.valueOf(tx.getGasLimit()))
-                        .divide(BigDecimal.valueOf(1e18), 18, RoundingMode.HALF_UP))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        analytics.setTotalNetworkFees(totalNetworkFees);
-        analytics.setAverageNetworkFee(
-                totalNetworkFees.divide(BigDecimal.valueOf(transactions.size()), 18, RoundingMode.HALF_UP)
-        );
-
-        // Calculate success rate
-        analytics.setSuccessRate(
-                BigDecimal.valueOf(analytics.getSuccessfulTransactions())
-                        .divide(BigDecimal.valueOf(transactions.size()), 4, RoundingMode.HALF_UP)
-                        .multiply(BigDecimal.valueOf(100))
-        );
+        return totals.toAnalytics();
+    }
 
-        return analytics;
+    private TransactionAnalytics calculateAnalytics(List<DappTransaction> transactions) {
+        return transactions.stream().collect(TransactionAnalyticsAccumulator.collector());
     }
 
-    private BigDecimal calculateAverageGasPrice(List<DappTransaction> transactions) {
-        return transactions.stream()
-                .filter(tx -> tx.getGasPrice() != null)
-                .map(DappTransaction::getGasPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add)
-                .divide(BigDecimal.valueOf(transactions.size()), 9, RoundingMode.HALF_UP);
+    private TransactionAnalytics accumulate(Stream<TransactionAnalyticsRow> rows) {
+        TransactionAnalyticsAccumulator accumulator = new TransactionAnalyticsAccumulator();
+        rows.forEach(accumulator::add);
+        return accumulator.toAnalytics();
     }
 
+    @Transactional(readOnly = true)
     public TransactionSearchResult searchTransactions(
             Long userId,
             TransactionSearchCriteria criteria,
             Pageable pageable) {
+        return searchTransactions(userId, criteria, pageable, false);
+    }
+
+    @Transactional(readOnly = true)
+    public TransactionSearchResult searchTransactions(
+            Long userId,
+            TransactionSearchCriteria criteria,
+            Pageable pageable,
+            boolean fullRangeAnalytics) {
 
         Page<DappTransaction> transactions = dappTransactionRepository.searchTransactions(
                 userId,
@@ -160,33 +158,103 @@ public class TransactionAnalyticsService {
                 pageable
         );
 
+        TransactionAnalytics analytics;
+        if (fullRangeAnalytics) {
+            try (Stream<TransactionAnalyticsRow> rows = dappTransactionRepository.streamSearchAnalyticsRows(
+                    userId,
+                    criteria.getNetwork(),
+                    criteria.getStatus(),
+                    criteria.getType(),
+                    criteria.getDappName(),
+                    criteria.getStartDate(),
+                    criteria.getEndDate(),
+                    criteria.getMinValue(),
+                    criteria.getMaxValue(),
+                    criteria.getWalletAddress())) {
+                analytics = accumulate(rows);
+            }
+        } else {
+            analytics = calculateAnalytics(transactions.getContent());
+        }
+
         return new TransactionSearchResult(
                 transactions.getContent(),
                 transactions.getTotalElements(),
                 transactions.getTotalPages(),
-                calculateAnalytics(transactions.getContent())
+                analytics
         );
     }
 
+    @Transactional(readOnly = true)
     public TransactionSearchResult searchTransactionsByQuery(
             Long userId,
             String query,
             Pageable pageable) {
+        return searchTransactionsByQuery(userId, query, pageable, false);
+    }
+
+    /**
+     * Finds the user's transactions whose hash, wallet address or contract address starts with
+     * the query, case-insensitively. A bare hex query is treated as if it had the 0x prefix.
+     */
+    @Transactional(readOnly = true)
+    public TransactionSearchResult searchTransactionsByQuery(
+            Long userId,
+            String query,
+            Pageable pageable,
+            boolean fullRangeAnalytics) {
+
+        String prefix = searchPrefix(query);
+        if (prefix == null) {
+            return new TransactionSearchResult(Collections.emptyList(), 0, 0, new TransactionAnalytics());
+        }
+        String prefixEnd = prefixEnd(prefix);
 
         Page<DappTransaction> transactions = dappTransactionRepository.searchTransactionsByQuery(
                 userId,
-                query,
+                prefix,
+                prefixEnd,
                 pageable
         );
 
+        TransactionAnalytics analytics;
+        if (fullRangeAnalytics) {
+            try (Stream<TransactionAnalyticsRow> rows = dappTransactionRepository.streamQueryAnalyticsRows(
+                    userId, prefix, prefixEnd)) {
+                analytics = accumulate(rows);
+            }
+        } else {
+            analytics = calculateAnalytics(transactions.getContent());
+        }
+
         return new TransactionSearchResult(
                 transactions.getContent(),
                 transactions.getTotalElements(),
                 transactions.getTotalPages(),
-                calculateAnalytics(transactions.getContent())
+                analytics
         );
     }
 
+    static String searchPrefix(String query) {
+        if (query == null || query.isBlank()) {
+            return null;
+        }
+        String prefix = query.trim().toLowerCase(Locale.ROOT);
+        if (!prefix.startsWith("0x") && HEX.matcher(prefix).matches()) {
+            prefix = "0x" + prefix;
+        }
+        return prefix;
+    }
+
+    /**
+     * The smallest string greater than every string starting with the prefix.
+     */
+    static String prefixEnd(String prefix) {
+        char last = prefix.charAt(prefix.length() - 1);
+        return prefix.substring(0, prefix.length() - 1) + (char) (last + 1);
+    }
+
+    @Transactional(readOnly = true)
     public UserTransactionMetadata getUserTransactionMetadata(Long userId) {
         return new UserTransactionMetadata(
                 dappTransactionRepository.findUserNetworks(userId),
@@ -202,6 +270,14 @@ public class TransactionAnalyticsService {
         private final TransactionAnalytics analytics;
     }
 
+    @Data
+    public static class TransactionHistorySlice {
+        private final List<DappTransaction> transactions;
+        private final String nextCursor;
+        private final boolean hasNext;
+        private final TransactionAnalytics analytics;
+    }
+
     @Data
     public static class TransactionAnalytics {
         private int totalTransactions;
@@ -0,0 +1,302 @@
+package com.web3platform.wallet_service.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly partitions of dapp_transaction. Partitions are created a few months
+ * ahead, and once a month is older than the archive age and holds only settled transactions it
+ * is rewritten as an archive partition: rows packed by user with no free space, wide values
+ * compressed, all pages frozen so vacuum skips them from then on. Archive partitions stay
+ * attached, so history, analytics and search reach them like any other month, while queries
+ * bounded on created_at prune them.
+ */
+@Slf4j
+@Service
+public class TransactionArchiveService {
+
+    static final String TABLE = "dapp_transaction";
+    static final String PARTITION_PREFIX = TABLE + "_p";
+    static final String ARCHIVE_SUFFIX = "_archive";
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern HOT_PARTITION = Pattern.compile(PARTITION_PREFIX + "(\\d{6})");
+
+    // pg_try_advisory_xact_lock key, so a single node maintains the partitions at a time
+    private static final long MAINTENANCE_LOCK = 0x64617070L;
+    private static final String GUARD_TRIGGER = "archive_guard";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${archive.after-days:180}")
+    private int afterDays;
+
+    @Value("${archive.months-ahead:3}")
+    private int monthsAhead;
+
+    // Bounds how long the table lock may wait, and so how long writes queue behind it
+    @Value("${archive.lock-timeout-ms:5000}")
+    private long lockTimeoutMillis;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(cron = "${archive.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        createUpcomingPartitions(YearMonth.now());
+
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = '" + TABLE + "'::regclass", String.class);
+        for (YearMonth month : archivableMonths(partitions, LocalDate.now(), afterDays)) {
+            try {
+                archive(month);
+            } catch (DataAccessException e) {
+                log.error("Failed to archive transactions of {}", month, e);
+            }
+        }
+
+        Long defaultRows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + TABLE + "_default", Long.class);
+        if (defaultRows != null && defaultRows > 0) {
+            log.warn("{} transactions fell into the default partition", defaultRows);
+        }
+    }
+
+    void createUpcomingPartitions(YearMonth current) {
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(month) +
+                        " PARTITION OF " + TABLE + " FOR VALUES FROM " + bounds(month));
+            } catch (DataAccessException e) {
+                // Another node created it at the same time, or rows for the month are already
+                // in the default partition
+                log.warn("Could not create the transaction partition for {}", month, e);
+            }
+        }
+    }
+
+    /**
+     * Rewrites a month as an archive partition. The copy and its indexes are built without
+     * locking the month, while a trigger records any write to it; the swap then takes the
+     * table lock once, briefly, and is abandoned if the month changed during the copy. Returns
+     * false when the month still has unsettled transactions, changed while it was copied, or
+     * another node holds the maintenance lock.
+     */
+    boolean archive(YearMonth month) {
+        if (!guard(month)) {
+            return false;
+        }
+        boolean swapped;
+        try {
+            swapped = copyAndSwap(month);
+        } catch (RuntimeException e) {
+            releaseGuard(month);
+            throw e;
+        }
+        if (!swapped) {
+            releaseGuard(month);
+            return false;
+        }
+        String archive = partitionName(month) + ARCHIVE_SUFFIX;
+        // Outside the transaction; marks every page all-frozen
+        jdbcTemplate.execute("VACUUM (FREEZE, ANALYZE) " + archive);
+        log.info("Archived transactions of {}", month);
+        return true;
+    }
+
+    /**
+     * Starts recording writes to a settled month. Writes to the month wait only for this short
+     * transaction, so once it commits the settled check holds unless a change is recorded.
+     */
+    boolean guard(YearMonth month) {
+        String partition = partitionName(month);
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (!maintenanceLock()) {
+                return false;
+            }
+            if (!isHotPartition(partition)) {
+                return false;
+            }
+            jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMillis);
+            jdbcTemplate.update("DELETE FROM transaction_archive_change WHERE partition_name = ?", partition);
+            jdbcTemplate.execute("CREATE OR REPLACE TRIGGER " + GUARD_TRIGGER +
+                    " AFTER INSERT OR UPDATE OR DELETE ON " + partition +
+                    " FOR EACH ROW EXECUTE FUNCTION dapp_transaction_archive_change()");
+            // In-flight or not yet rolled up transactions are still being written to
+            Long unsettled = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM " + partition + " WHERE status IN ('PENDING', 'SUBMITTED') " +
+                    "OR rollup_status IS DISTINCT FROM status", Long.class);
+            if (unsettled != null && unsettled > 0) {
+                log.info("Not archiving transactions of {} yet, {} are not settled", month, unsettled);
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        }));
+    }
+
+    /**
+     * Copies the guarded month into a new table, indexes it, and swaps it in under a short
+     * lock on the whole table, taken before any other lock the swap needs. Everything is
+     * rolled back when the month changed since {@link #guard(YearMonth)}.
+     */
+    boolean copyAndSwap(YearMonth month) {
+        String partition = partitionName(month);
+        String archive = partition + ARCHIVE_SUFFIX;
+
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (!maintenanceLock()) {
+                return false;
+            }
+            if (!isHotPartition(partition) || !isGuarded(partition)) {
+                // Another node swapped it, or dropped the guard, in the meantime
+                return false;
+            }
+
+            jdbcTemplate.execute("CREATE TABLE " + archive + " (LIKE " + TABLE + " INCLUDING DEFAULTS) " +
+                    "WITH (fillfactor = 100, toast_tuple_target = 128)");
+            // Clustered by user, so a user's search reads few pages
+            jdbcTemplate.execute("INSERT INTO " + archive + " SELECT * FROM " + partition +
+                    " ORDER BY user_id, created_at, id");
+            // Lets the attach skip its validation scan
+            jdbcTemplate.execute("ALTER TABLE " + archive + " ADD CONSTRAINT " + archive + "_bounds " +
+                    "CHECK (created_at >= '" + month.atDay(1) + "' AND created_at < '" + month.plusMonths(1).atDay(1) + "')");
+            jdbcTemplate.execute("ALTER TABLE " + archive + " ADD PRIMARY KEY (id, created_at)");
+            // Matching indexes built up front are attached as is rather than rebuilt under lock
+            int n = 0;
+            for (Map<String, Object> index : jdbcTemplate.queryForList(
+                    "SELECT indexname, indexdef FROM pg_indexes " +
+                    "WHERE schemaname = current_schema() AND tablename = '" + TABLE + "' AND indexname NOT IN " +
+                    "(SELECT conname FROM pg_constraint WHERE conrelid = '" + TABLE + "'::regclass)")) {
+                jdbcTemplate.execute(indexDefinition(
+                        (String) index.get("indexdef"), (String) index.get("indexname"), archive, ++n));
+            }
+
+            // The parent first: writers lock it before the partitions, so taking it last, as
+            // the detach would, can deadlock with them. Writes wait from here to the commit.
+            jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMillis);
+            jdbcTemplate.execute("LOCK TABLE " + TABLE + " IN ACCESS EXCLUSIVE MODE");
+            Long changes = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM transaction_archive_change WHERE partition_name = ?", Long.class, partition);
+            if (changes != null && changes > 0) {
+                log.info("Not archiving transactions of {}, they changed while being copied", month);
+                status.setRollbackOnly();
+                return false;
+            }
+
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + partition);
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + archive +
+                    " FOR VALUES FROM " + bounds(month));
+            // Takes the guard trigger with it
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            jdbcTemplate.execute("ALTER TABLE " + archive + " DROP CONSTRAINT " + archive + "_bounds");
+            return true;
+        }));
+    }
+
+    private void releaseGuard(YearMonth month) {
+        String partition = partitionName(month);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!maintenanceLock() || !isHotPartition(partition)) {
+                    return;
+                }
+                jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMillis);
+                jdbcTemplate.execute("DROP TRIGGER IF EXISTS " + GUARD_TRIGGER + " ON " + partition);
+                jdbcTemplate.update("DELETE FROM transaction_archive_change WHERE partition_name = ?", partition);
+            });
+        } catch (DataAccessException e) {
+            // Left in place, it only records writes; the next attempt resets it
+            log.warn("Could not remove the archive guard of {}", month, e);
+        }
+    }
+
+    private boolean maintenanceLock() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MAINTENANCE_LOCK));
+    }
+
+    private boolean isGuarded(String partition) {
+        Integer triggers = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_trigger WHERE tgrelid = ?::regclass AND tgname = ?",
+                Integer.class, partition, GUARD_TRIGGER);
+        return triggers != null && triggers > 0;
+    }
+
+    private boolean isHotPartition(String partition) {
+        Integer attached = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = '" + TABLE + "'::regclass AND c.relname = ?", Integer.class, partition);
+        return attached != null && attached > 0;
+    }
+
+    /**
+     * Hot monthly partitions that ended at least afterDays before today, oldest first.
+     */
+    static List<YearMonth> archivableMonths(List<String> partitions, LocalDate today, int afterDays) {
+        LocalDate cutoff = today.minusDays(afterDays);
+        List<YearMonth> months = new ArrayList<>();
+        for (String partition : partitions) {
+            Matcher matcher = HOT_PARTITION.matcher(partition);
+            if (matcher.matches()) {
+                YearMonth month = YearMonth.parse(matcher.group(1), MONTH);
+                if (!month.plusMonths(1).atDay(1).isAfter(cutoff)) {
+                    months.add(month);
+                }
+            }
+        }
+        months.sort(null);
+        return months;
+    }
+
+    /**
+     * Turns the definition of an index on the partitioned table, as pg_indexes reports it,
+     * into the same index on the given table.
+     */
+    static String indexDefinition(String definition, String indexName, String table, int n) {
+        return definition
+                .replaceFirst("INDEX " + Pattern.quote(indexName) + " ON ", Matcher.quoteReplacement("INDEX " + table + "_idx" + n + " ON "))
+                .replaceFirst(" ON ONLY \\S+ ", Matcher.quoteReplacement(" ON " + table + " "));
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(MONTH);
+    }
+
+    private static String bounds(YearMonth month) {
+        return "('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')";
+    }
+}
@@ -0,0 +1,156 @@
+package com.web3platform.wallet_service.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web3platform.wallet_service.dto.TransactionExportRow;
+import com.web3platform.wallet_service.repository.DappTransactionRepository;
+import com.web3platform.wallet_service.util.TransactionCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams a user's full transaction history as CSV or NDJSON. Rows come from a forward-only
+ * database cursor and go straight to the output, so memory stays flat however long the
+ * history is. Every row carries the cursor that resumes the export right after it.
+ */
+@Slf4j
+@Service
+public class TransactionExportService {
+
+    public enum ExportFormat {
+        CSV,
+        NDJSON
+    }
+
+    static final String[] COLUMNS = {
+            "cursor", "id", "timestamp", "completedAt", "type", "status", "network", "dappName",
+            "transactionHash", "walletAddress", "fromAddress", "toAddress", "contractAddress",
+            "token", "amount", "value", "gasPrice", "gasLimit", "blockNumber"
+    };
+
+    @Autowired
+    private DappTransactionRepository dappTransactionRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Writes the user's transactions after the cursor, newest first, and returns how many were
+     * written. The output is flushed but not closed.
+     */
+    @Transactional(readOnly = true)
+    public long export(
+            Long userId,
+            String network,
+            TransactionCursor after,
+            ExportFormat format,
+            OutputStream out) throws IOException {
+
+        long count = 0;
+        try (Stream<TransactionExportRow> rows = dappTransactionRepository.streamExportRows(
+                userId, network, after.getTimestamp(), after.getId())) {
+            Iterator<TransactionExportRow> iterator = rows.iterator();
+            if (format == ExportFormat.CSV) {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                writeCsvRow(writer, COLUMNS);
+                while (iterator.hasNext()) {
+                    writeCsvRow(writer, values(iterator.next()));
+                    count++;
+                }
+                writer.flush();
+            } else {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(new SerializedString("\n"));
+                while (iterator.hasNext()) {
+                    writeJsonRow(generator, values(iterator.next()));
+                    count++;
+                }
+                if (count > 0) {
+                    generator.writeRaw('\n');
+                }
+                generator.close();
+            }
+        }
+        log.debug("Exported {} transactions of user {}", count, userId);
+        return count;
+    }
+
+    static Object[] values(TransactionExportRow row) {
+        return new Object[] {
+                new TransactionCursor(row.getTimestamp(), row.getId()).encode(),
+                row.getId(),
+                row.getTimestamp(),
+                row.getCompletedAt(),
+                row.getType(),
+                row.getStatus(),
+                row.getNetwork(),
+                row.getDappName(),
+                row.getTransactionHash(),
+                row.getWalletAddress(),
+                row.getFromAddress(),
+                row.getToAddress(),
+                row.getContractAddress(),
+                row.getToken(),
+                row.getAmount(),
+                row.getValue(),
+                row.getGasPrice(),
+                row.getGasLimit(),
+                row.getBlockNumber()
+        };
+    }
+
+    private static void writeJsonRow(JsonGenerator generator, Object[] values) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < COLUMNS.length; i++) {
+            Object value = values[i];
+            if (value == null) {
+                generator.writeNullField(COLUMNS[i]);
+            } else if (value instanceof Long) {
+                generator.writeNumberField(COLUMNS[i], (Long) value);
+            } else if (value instanceof BigDecimal) {
+                generator.writeNumberField(COLUMNS[i], (BigDecimal) value);
+            } else {
+                generator.writeStringField(COLUMNS[i], value.toString());
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * One RFC 4180 record; empty cells are nulls.
+     */
+    static void writeCsvRow(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            String text = value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
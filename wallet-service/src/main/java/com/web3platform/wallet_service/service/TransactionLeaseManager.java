@@ -0,0 +1,238 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.model.DappTransaction;
+import com.web3platform.wallet_service.model.MonitorNode;
+import com.web3platform.wallet_service.repository.DappTransactionRepository;
+import com.web3platform.wallet_service.repository.MonitorNodeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Splits pending-transaction monitoring across service instances. Every node heartbeats into
+ * monitor_node and holds time-limited leases on its share of the PENDING rows; claims use
+ * FOR UPDATE SKIP LOCKED so concurrent nodes never block on, or double-claim, the same row.
+ */
+@Slf4j
+@Service
+public class TransactionLeaseManager {
+
+    public interface LeaseListener {
+        void onLeasesAcquired(Map<Long, String> networksById);
+
+        void onLeasesReleased(Set<Long> transactionIds);
+    }
+
+    @Autowired
+    private DappTransactionRepository dappTransactionRepository;
+
+    @Autowired
+    private MonitorNodeRepository monitorNodeRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${monitor.lease.node-id:}")
+    private String configuredNodeId;
+
+    @Value("${monitor.lease.duration-ms:60000}")
+    private long leaseDurationMillis;
+
+    private static final int REBALANCE_SLACK_PERCENT = 10;
+    private static final int STALE_NODE_LEASE_MULTIPLIER = 10;
+
+    private String nodeId;
+    private final Map<Long, String> ownedLeases = new ConcurrentHashMap<>();
+    private final List<LeaseListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Guards ownedLeases changes and their listener callbacks; never held across a database call
+    private final Object leaseLock = new Object();
+    // Insert claims made while a rebalance is in progress, which its renewal may not have seen
+    private final Map<Long, String> claimedDuringRebalance = new HashMap<>();
+
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    public void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        // Claims run from afterCommit, where the committed transaction's resources are still bound
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        nodeId = configuredNodeId != null && !configuredNodeId.isBlank()
+                ? configuredNodeId
+                : resolveHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        log.info("Transaction monitor node id: {}", nodeId);
+    }
+
+    public void addListener(LeaseListener listener) {
+        listeners.add(listener);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public boolean owns(Long transactionId) {
+        return ownedLeases.containsKey(transactionId);
+    }
+
+    /**
+     * Claims a transaction this node just inserted once the insert has committed, so it is
+     * polled right away instead of waiting for the next rebalance to pick it up.
+     */
+    public void onInserted(DappTransaction transaction) {
+        if (transaction.getId() == null || transaction.getStatus() != DappTransaction.TransactionStatus.PENDING) {
+            return;
+        }
+        Long id = transaction.getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            claim(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                claim(id);
+            }
+        });
+    }
+
+    private void claim(Long transactionId) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            Map<Long, String> claimed = toMap(requiresNew.execute(status -> dappTransactionRepository.claimLease(
+                    transactionId, nodeId, now.plus(Duration.ofMillis(leaseDurationMillis)), now)));
+            if (claimed.isEmpty()) {
+                return;
+            }
+            synchronized (leaseLock) {
+                claimedDuringRebalance.putAll(claimed);
+                ownedLeases.putAll(claimed);
+                listeners.forEach(listener -> listener.onLeasesAcquired(claimed));
+            }
+        } catch (Exception e) {
+            // The next rebalance claims it
+            log.warn("Failed to claim the lease on transaction {}", transactionId, e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${monitor.lease.renew-interval-ms:15000}")
+    public void rebalance() {
+        try {
+            synchronized (leaseLock) {
+                claimedDuringRebalance.clear();
+            }
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime expiresAt = now.plus(Duration.ofMillis(leaseDurationMillis));
+
+            monitorNodeRepository.save(new MonitorNode(nodeId, now));
+            long liveNodes = Math.max(1, monitorNodeRepository
+                    .countByLastHeartbeatAfter(now.minus(Duration.ofMillis(leaseDurationMillis))));
+
+            // Renewal doubles as the authoritative view of what this node still holds
+            Map<Long, String> renewed = toMap(dappTransactionRepository.renewLeases(nodeId, expiresAt));
+
+            long pending = dappTransactionRepository.countByStatus(DappTransaction.TransactionStatus.PENDING);
+            int fairShare = (int) ((pending + liveNodes - 1) / liveNodes);
+            int releaseThreshold = fairShare + Math.max(1, fairShare * REBALANCE_SLACK_PERCENT / 100);
+
+            Set<Long> handedBack = new HashSet<>();
+            if (renewed.size() > releaseThreshold) {
+                // Another node joined; hand back the surplus so it can claim it
+                dappTransactionRepository.releaseLeases(nodeId, renewed.size() - fairShare)
+                        .forEach(lease -> handedBack.add(lease.getId()));
+                renewed.keySet().removeAll(handedBack);
+            } else if (renewed.size() < fairShare) {
+                // New rows, or leases left behind by a node that is gone
+                renewed.putAll(toMap(dappTransactionRepository
+                        .claimPendingLeases(nodeId, expiresAt, now, fairShare - renewed.size())));
+            }
+
+            synchronized (leaseLock) {
+                // An insert claim that committed after the renewal is still held
+                renewed.putAll(claimedDuringRebalance);
+                renewed.keySet().removeAll(handedBack);
+                publishChanges(renewed);
+            }
+            log.debug("Node {} holds {} of {} pending transactions across {} nodes",
+                    nodeId, ownedLeases.size(), pending, liveNodes);
+
+            monitorNodeRepository.deleteByLastHeartbeatBefore(
+                    now.minus(Duration.ofMillis(leaseDurationMillis * STALE_NODE_LEASE_MULTIPLIER)));
+        } catch (Exception e) {
+            log.error("Error rebalancing transaction monitor leases", e);
+        }
+    }
+
+    @PreDestroy
+    public void releaseAll() {
+        try {
+            int released = dappTransactionRepository.releaseAllLeases(nodeId);
+            monitorNodeRepository.deleteById(nodeId);
+            log.info("Node {} released {} transaction leases", nodeId, released);
+        } catch (Exception e) {
+            log.error("Error releasing transaction monitor leases", e);
+        }
+    }
+
+    private void publishChanges(Map<Long, String> current) {
+        Map<Long, String> acquired = new HashMap<>();
+        current.forEach((id, network) -> {
+            if (!ownedLeases.containsKey(id)) {
+                acquired.put(id, network);
+            }
+        });
+        Set<Long> released = new HashSet<>();
+        for (Long id : ownedLeases.keySet()) {
+            if (!current.containsKey(id)) {
+                released.add(id);
+            }
+        }
+
+        ownedLeases.keySet().removeAll(released);
+        ownedLeases.putAll(acquired);
+
+        for (LeaseListener listener : listeners) {
+            if (!released.isEmpty()) {
+                listener.onLeasesReleased(released);
+            }
+            if (!acquired.isEmpty()) {
+                listener.onLeasesAcquired(acquired);
+            }
+        }
+    }
+
+    private Map<Long, String> toMap(List<DappTransactionRepository.LeasedTransaction> leases) {
+        Map<Long, String> map = new HashMap<>();
+        leases.forEach(lease -> map.put(lease.getId(), lease.getNetwork()));
+        return map;
+    }
+
+    private String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.config.NetworkConfig;
+import com.web3platform.wallet_service.model.DappTransaction;
+import com.web3platform.wallet_service.repository.DappTransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.http.HttpService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Single monitoring pipeline for pending transactions on every network:
+ * fetch-pending, resolve-receipts, compute-state, persist and notify. Receipt lookups,
+ * database writes and notifications each run on their own bounded executor, and every
+ * stage reports its duration and item count per network.
+ */
+@Slf4j
+@Service
+public class TransactionMonitorPipeline {
+
+    public static final String STAGE_FETCH_PENDING = "fetch-pending";
+    public static final String STAGE_RESOLVE_RECEIPTS = "resolve-receipts";
+    public static final String STAGE_COMPUTE_STATE = "compute-state";
+    public static final String STAGE_PERSIST = "persist";
+    public static final String STAGE_NOTIFY = "notify";
+
+    @Autowired
+    private DappTransactionRepository dappTransactionRepository;
+
+    @Autowired
+    private TransactionStatusNotifier statusNotifier;
+
+    @Autowired
+    private BlockConfirmationEngine confirmationEngine;
+
+    @Autowired
+    private TransactionLeaseManager leaseManager;
+
+    @Autowired
+    private PendingTransactionIndex pendingIndex;
+
+    @Autowired
+    private TransactionRollupService rollupService;
+
+    @Autowired
+    private TransactionSeriesStore seriesStore;
+
+    @Autowired
+    private List<ConfirmationStrategy> strategies;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${monitor.pipeline.receipt-concurrency:16}")
+    private int receiptConcurrency;
+
+    @Value("${monitor.pipeline.persist-concurrency:2}")
+    private int persistConcurrency;
+
+    @Value("${monitor.pipeline.notify-concurrency:1}")
+    private int notifyConcurrency;
+
+    private static final int STAGE_QUEUE_CAPACITY = 10000;
+
+    private ExecutorService receiptExecutor;
+    private ExecutorService persistExecutor;
+    private ExecutorService notifyExecutor;
+    private final Map<String, Web3j> web3jClients = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        receiptExecutor = stageExecutor(STAGE_RESOLVE_RECEIPTS, receiptConcurrency);
+        persistExecutor = stageExecutor(STAGE_PERSIST, persistConcurrency);
+        notifyExecutor = stageExecutor(STAGE_NOTIFY, notifyConcurrency);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        receiptExecutor.shutdown();
+        persistExecutor.shutdown();
+        notifyExecutor.shutdown();
+    }
+
+    /**
+     * Runs one batch of due transactions for a network through every stage. Transactions that
+     * are no longer pending, no longer leased to this node or have no hash are reported as
+     * dropped so the caller can stop tracking them.
+     */
+    public PipelineResult process(
+            String networkId,
+            NetworkConfig.NetworkProperties networkProps,
+            List<Long> transactionIds) throws Exception {
+        ConfirmationStrategy strategy = strategyFor(networkProps);
+        Web3j web3j = getWeb3jClient(networkId, networkProps.getRpcUrl());
+        List<Long> dropped = new ArrayList<>();
+
+        List<PendingTransactionIndex.TrackedTransaction> pending = timed(STAGE_FETCH_PENDING, networkId, transactionIds.size(),
+                () -> fetchPending(transactionIds, dropped));
+
+        if (pending.isEmpty()) {
+            return new PipelineResult(new ArrayList<>(), dropped);
+        }
+
+        // One head lookup per network, receipts only for transactions that are not mined yet
+        BlockConfirmationEngine.ChainSnapshot snapshot = strategy.snapshot(networkId, networkProps, web3j);
+        Map<Boolean, List<PendingTransactionIndex.TrackedTransaction>> byMined = pending.stream()
+                .collect(Collectors.partitioningBy(transaction -> transaction.getBlockNumber() != null));
+        List<PendingTransactionIndex.TrackedTransaction> unmined = byMined.get(false);
+        List<PendingTransactionIndex.TrackedTransaction> mined = byMined.get(true);
+        List<BlockConfirmationEngine.ConfirmationUpdate> receiptUpdates = timed(
+                STAGE_RESOLVE_RECEIPTS, networkId, unmined.size(), () -> resolveReceipts(unmined, web3j));
+
+        List<BlockConfirmationEngine.ConfirmationUpdate> updates = timed(STAGE_COMPUTE_STATE, networkId, pending.size(),
+                () -> computeState(strategy, networkId, snapshot, networkProps, mined, receiptUpdates));
+
+        timed(STAGE_PERSIST, networkId, updates.size(),
+                () -> persistExecutor.submit(() -> persist(strategy, networkId, snapshot, updates)).get());
+
+        notifyExecutor.execute(() -> {
+            try {
+                timed(STAGE_NOTIFY, networkId, updates.size(), () -> {
+                    updates.forEach(update -> notifyUpdate(update, networkProps));
+                    return null;
+                });
+            } catch (Exception e) {
+                log.error("Error notifying transaction updates on network {}", networkId, e);
+            }
+        });
+
+        return new PipelineResult(updates, dropped);
+    }
+
+    private List<PendingTransactionIndex.TrackedTransaction> fetchPending(List<Long> transactionIds, List<Long> dropped) {
+        List<PendingTransactionIndex.TrackedTransaction> pending = new ArrayList<>(transactionIds.size());
+        for (Long id : transactionIds) {
+            PendingTransactionIndex.TrackedTransaction transaction = pendingIndex.get(id);
+            if (transaction == null
+                    || transaction.getStatus() != DappTransaction.TransactionStatus.PENDING
+                    || !leaseManager.owns(id)) {
+                dropped.add(id);
+            } else if (transaction.getTransactionHash() == null) {
+                log.warn("Transaction {} has no hash", id);
+                dropped.add(id);
+            } else {
+                pending.add(transaction);
+            }
+        }
+        return pending;
+    }
+
+    private List<BlockConfirmationEngine.ConfirmationUpdate> resolveReceipts(
+            List<PendingTransactionIndex.TrackedTransaction> unmined, Web3j web3j) {
+        List<CompletableFuture<BlockConfirmationEngine.ConfirmationUpdate>> futures = unmined.stream()
+                .map(transaction -> CompletableFuture.supplyAsync(
+                        () -> confirmationEngine.resolveReceipt(transaction, web3j), receiptExecutor))
+                .collect(Collectors.toList());
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    private List<BlockConfirmationEngine.ConfirmationUpdate> computeState(
+            ConfirmationStrategy strategy,
+            String networkId,
+            BlockConfirmationEngine.ChainSnapshot snapshot,
+            NetworkConfig.NetworkProperties networkProps,
+            List<PendingTransactionIndex.TrackedTransaction> mined,
+            List<BlockConfirmationEngine.ConfirmationUpdate> receiptUpdates) {
+        List<BlockConfirmationEngine.ConfirmationUpdate> updates = new ArrayList<>(mined.size() + receiptUpdates.size());
+        for (BlockConfirmationEngine.ConfirmationUpdate update : receiptUpdates) {
+            if (update.getState() == BlockConfirmationEngine.ConfirmationState.MINED) {
+                updates.add(strategy.evaluate(update.getTransaction(), snapshot, networkProps, true));
+            } else {
+                updates.add(update);
+            }
+        }
+        for (PendingTransactionIndex.TrackedTransaction transaction : mined) {
+            if (confirmationEngine.isReorged(networkId, transaction)) {
+                // The block was replaced, the receipt has to be looked up again
+                log.warn("Transaction {} was in reorged block {} ({})",
+                        transaction.getId(), transaction.getBlockNumber(), transaction.getBlockHash());
+                transaction.setBlockNumber(null);
+                transaction.setBlockHash(null);
+                updates.add(new BlockConfirmationEngine.ConfirmationUpdate(
+                        transaction, BlockConfirmationEngine.ConfirmationState.REORGED, 0, false));
+            } else {
+                updates.add(strategy.evaluate(transaction, snapshot, networkProps, false));
+            }
+        }
+        return updates;
+    }
+
+    private void persist(
+            ConfirmationStrategy strategy,
+            String networkId,
+            BlockConfirmationEngine.ChainSnapshot snapshot,
+            List<BlockConfirmationEngine.ConfirmationUpdate> updates) {
+        List<Long> failed = new ArrayList<>();
+        List<BlockConfirmationEngine.ConfirmationUpdate> confirmed = new ArrayList<>();
+        for (BlockConfirmationEngine.ConfirmationUpdate update : updates) {
+            PendingTransactionIndex.TrackedTransaction transaction = update.getTransaction();
+            if (update.isNewlyMined()
+                    || update.getState() == BlockConfirmationEngine.ConfirmationState.REORGED
+                    || update.getState() == BlockConfirmationEngine.ConfirmationState.FAILED) {
+                // Persist the block reference (and the hash that was mined) so the receipt is never fetched again
+                dappTransactionRepository.updateBlockReference(transaction.getId(),
+                        transaction.getTransactionHash(), transaction.getBlockNumber(), transaction.getBlockHash());
+            }
+            if (update.getState() == BlockConfirmationEngine.ConfirmationState.FAILED) {
+                failed.add(transaction.getId());
+            } else if (update.getState() == BlockConfirmationEngine.ConfirmationState.CONFIRMED) {
+                confirmed.add(update);
+            }
+        }
+
+        if (!failed.isEmpty()) {
+            dappTransactionRepository.updateStatus(failed, DappTransaction.TransactionStatus.FAILED, "Transaction reverted");
+            failed.forEach(id -> finish(id, DappTransaction.TransactionStatus.FAILED));
+            rollupService.reconcile(failed);
+        }
+        if (!confirmed.isEmpty()) {
+            // Counted with their latency here; rows the strategy did not change are left to the sweep
+            List<Long> confirmedIds = strategy.persistConfirmed(networkId, snapshot, confirmed);
+            for (BlockConfirmationEngine.ConfirmationUpdate update : confirmed) {
+                finish(update.getTransaction().getId(), DappTransaction.TransactionStatus.CONFIRMED);
+            }
+            rollupService.reconcile(confirmedIds);
+        }
+    }
+
+    private void finish(Long transactionId, DappTransaction.TransactionStatus status) {
+        PendingTransactionIndex.TrackedTransaction transaction = pendingIndex.get(transactionId);
+        if (transaction != null) {
+            transaction.setStatus(status);
+            seriesStore.onStatusChanged(transaction.getUserId(), transactionId, status);
+        }
+        pendingIndex.remove(transactionId);
+    }
+
+    private void notifyUpdate(BlockConfirmationEngine.ConfirmationUpdate update, NetworkConfig.NetworkProperties networkProps) {
+        PendingTransactionIndex.TrackedTransaction transaction = update.getTransaction();
+        switch (update.getState()) {
+            case PENDING:
+                // Transaction not yet mined
+                statusNotifier.publish(transaction, "pending", 0,
+                        String.format("Transaction is pending confirmation on %s", networkProps.getName()));
+                break;
+            case FAILED:
+                statusNotifier.publish(transaction, "failed", 0, "Transaction failed");
+                break;
+            case REORGED:
+                statusNotifier.publish(transaction, "reorged", 0,
+                        String.format("Transaction block was reorganized on %s, waiting to be mined again",
+                                networkProps.getName()));
+                break;
+            case CONFIRMED:
+                statusNotifier.publish(transaction, "confirmed", update.getConfirmations(),
+                        String.format("Transaction confirmed on %s", networkProps.getName()));
+                break;
+            case MINED:
+                if (networkProps.getConfirmationPolicy() != NetworkConfig.ConfirmationPolicy.DEPTH) {
+                    statusNotifier.publish(transaction, "mined", update.getConfirmations(),
+                            String.format("Transaction mined on %s, waiting for the %s block (%d confirmations)",
+                                    networkProps.getName(),
+                                    networkProps.getConfirmationPolicy().name().toLowerCase(),
+                                    update.getConfirmations()));
+                    break;
+                }
+                // Transaction mined but not enough confirmations
+                double estimatedTimeRemaining = (networkProps.getRequiredConfirmations() - update.getConfirmations())
+                        * networkProps.getBlockTime();
+                statusNotifier.publish(transaction, "mined", update.getConfirmations(),
+                        String.format("Transaction mined on %s, waiting for confirmations (%d/%d, ~%.1f seconds remaining)",
+                                networkProps.getName(),
+                                update.getConfirmations(),
+                                networkProps.getRequiredConfirmations(),
+                                estimatedTimeRemaining));
+                break;
+            default:
+                statusNotifier.publish(transaction, "error", 0, "Error monitoring transaction");
+        }
+    }
+
+    private ConfirmationStrategy strategyFor(NetworkConfig.NetworkProperties networkProps) {
+        return strategies.stream()
+                .filter(strategy -> strategy.supports(networkProps.getConfirmationPolicy()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(
+                        "No confirmation strategy for policy " + networkProps.getConfirmationPolicy()));
+    }
+
+    private Web3j getWeb3jClient(String networkId, String rpcUrl) {
+        return web3jClients.computeIfAbsent(networkId, k -> Web3j.build(new HttpService(rpcUrl)));
+    }
+
+    private <T> T timed(String stage, String networkId, int items, Callable<T> body) throws Exception {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return body.call();
+        } finally {
+            sample.stop(Timer.builder("transaction.monitor.stage")
+                    .tag("stage", stage)
+                    .tag("network", networkId)
+                    .register(meterRegistry));
+            meterRegistry.counter("transaction.monitor.stage.items", "stage", stage, "network", networkId)
+                    .increment(items);
+        }
+    }
+
+    private ExecutorService stageExecutor(String stage, int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(STAGE_QUEUE_CAPACITY),
+                runnable -> new Thread(runnable, "tx-monitor-" + stage + "-" + counter.incrementAndGet()),
+                // A saturated stage pushes back on the network lane that feeds it
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        meterRegistry.gauge("transaction.monitor.stage.queue", List.of(Tag.of("stage", stage)),
+                executor, e -> e.getQueue().size());
+        return executor;
+    }
+
+    @Data
+    public static class PipelineResult {
+        private final List<BlockConfirmationEngine.ConfirmationUpdate> updates;
+        private final List<Long> dropped;
+    }
+}
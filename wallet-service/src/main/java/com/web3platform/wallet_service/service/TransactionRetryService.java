@@ -1,24 +1,68 @@
 package com.web3platform.wallet_service.service;
 
+import com.web3platform.wallet_service.config.NetworkConfig;
 import com.web3platform.wallet_service.model.DappTransaction;
+import com.web3platform.wallet_service.model.TransactionReplacement;
 import com.web3platform.wallet_service.repository.DappTransactionRepository;
+import com.web3platform.wallet_service.repository.TransactionReplacementRepository;
+import com.web3platform.wallet_service.util.HashedTimingWheel;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.web3j.crypto.Credentials;
+import org.web3j.crypto.RawTransaction;
+import org.web3j.crypto.TransactionEncoder;
 import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.methods.response.EthSendTransaction;
 import org.web3j.protocol.core.methods.response.TransactionReceipt;
+import org.web3j.protocol.http.HttpService;
 import org.web3j.tx.gas.ContractGasProvider;
+import org.web3j.utils.Convert;
+import org.web3j.utils.Numeric;
 
+import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Retries failed transactions with exponential backoff. The next attempt is persisted in
+ * next_attempt_at and tracked in a timing wheel, so waiting retries hold no thread and are
+ * picked up again after a restart. Due retries run on a small bounded executor, and each one
+ * is claimed with a conditional UPDATE so only one node performs a given attempt.
+ * <p>
+ * In {@link RetryMode#REPLACE} mode, which is opt-in, pending transactions that stay unmined
+ * are also rebroadcast by their lease owner with their original nonce, calldata and a higher
+ * fee. Every replaced hash is kept, and the monitor finalizes the transaction with whichever
+ * hash of the nonce gets mined.
+ */
 @Slf4j
 @Service
 public class TransactionRetryService {
 
+    public enum RetryMode {
+        RESUBMIT,   // failed transactions are sent again as new transactions
+        REPLACE     // additionally replace stuck pending transactions by fee, keeping their nonce
+    }
+
     @Autowired
     private Web3j web3j;
 
@@ -28,97 +72,349 @@ public class TransactionRetryService {
     @Autowired
     private ContractGasProvider gasProvider;
 
+    @Autowired
+    private GasFeeEngine gasFeeEngine;
+
+    @Autowired
+    private TransactionReplacementRepository replacementRepository;
+
+    @Autowired
+    private PendingTransactionIndex pendingIndex;
+
+    @Autowired
+    private TransactionRollupService rollupService;
+
+    @Autowired
+    private WalletKeyService walletKeyService;
+
+    @Autowired
+    private NetworkConfig networkConfig;
+
+    @Autowired
+    private TransactionLeaseManager leaseManager;
+
+    @Value("${retry.mode:RESUBMIT}")
+    private RetryMode retryMode;
+
+    @Value("${retry.replace-after-ms:180000}")
+    private long replaceAfterMillis;
+
+    @Value("${retry.tick-ms:1000}")
+    private long tickMillis;
+
+    @Value("${retry.concurrency:4}")
+    private int retryConcurrency;
+
     private static final int MAX_RETRIES = 3;
     private static final long INITIAL_RETRY_DELAY = 30000; // 30 seconds
     private static final double RETRY_DELAY_MULTIPLIER = 2.0;
+    private static final long REJECTED_RETRY_DELAY = 5000; // executor full, try again shortly
+    private static final int WHEEL_SIZE = 256;
+    private static final int RETRY_QUEUE_CAPACITY = 1000;
+
+    private HashedTimingWheel<ScheduledRetry> wheel;
+    // Attempt time each transaction is currently scheduled for, stale wheel entries are skipped
+    private final Map<Long, LocalDateTime> scheduled = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "tx-retry-ticker"));
+    private ThreadPoolExecutor retryExecutor;
+    private final Map<String, Web3j> web3jClients = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        wheel = new HashedTimingWheel<>(tickMillis, WHEEL_SIZE, System.currentTimeMillis());
+        AtomicInteger counter = new AtomicInteger();
+        retryExecutor = new ThreadPoolExecutor(
+                retryConcurrency, retryConcurrency, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(RETRY_QUEUE_CAPACITY),
+                runnable -> new Thread(runnable, "tx-retry-" + counter.incrementAndGet()));
+        ticker.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        retryExecutor.shutdown();
+    }
 
+    /**
+     * Picks up failed transactions that still have retries left. The first run after startup
+     * restores every retry that was already scheduled before the restart.
+     */
     @Scheduled(fixedDelay = 60000) // Check every minute
     public void processRetryableTransactions() {
         try {
-            List<DappTransaction> failedTransactions = dappTransactionRepository
-                    .findByStatus(DappTransaction.TransactionStatus.FAILED);
+            List<DappTransactionRepository.RetryCandidate> candidates = dappTransactionRepository
+                    .findRetryCandidates(DappTransaction.TransactionStatus.FAILED, MAX_RETRIES);
 
-            if (failedTransactions.isEmpty()) {
+            if (candidates.isEmpty()) {
                 return;
             }
 
-            log.info("Processing {} failed transactions for retry", failedTransactions.size());
-
-            List<CompletableFuture<Void>> retryFutures = failedTransactions.stream()
-                    .filter(this::shouldRetry)
-                    .map(this::retryTransaction)
-                    .collect(Collectors.toList());
-
-            CompletableFuture.allOf(retryFutures.toArray(new CompletableFuture[0])).join();
+            log.info("Found {} failed transactions eligible for retry", candidates.size());
+            scheduleCandidates(candidates, INITIAL_RETRY_DELAY, false);
         } catch (Exception e) {
             log.error("Error processing retryable transactions", e);
         }
     }
 
-    private boolean shouldRetry(DappTransaction transaction) {
-        // Check if transaction has been retried less than MAX_RETRIES times
-        int retryCount = transaction.getRetryCount() != null ? transaction.getRetryCount() : 0;
-        return retryCount < MAX_RETRIES;
+    /**
+     * Schedules a same-nonce replacement for every pending transaction that is still unmined.
+     * A replacement becomes due once the transaction has waited replace-after-ms, doubled for
+     * every earlier replacement.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void processStuckTransactions() {
+        if (retryMode != RetryMode.REPLACE) {
+            return;
+        }
+        try {
+            List<DappTransactionRepository.RetryCandidate> candidates = dappTransactionRepository
+                    .findReplacementCandidates(DappTransaction.TransactionStatus.PENDING, MAX_RETRIES);
+            scheduleCandidates(candidates, replaceAfterMillis, true);
+        } catch (Exception e) {
+            log.error("Error processing stuck transactions", e);
+        }
     }
 
-    private CompletableFuture<Void> retryTransaction(DappTransaction transaction) {
-        return CompletableFuture.runAsync(() -> {
-            try {
-                // Calculate retry delay with exponential backoff
-                int retryCount = transaction.getRetryCount() != null ? transaction.getRetryCount() : 0;
-                long retryDelay = (long) (INITIAL_RETRY_DELAY * Math.pow(RETRY_DELAY_MULTIPLIER, retryCount));
-
-                // Wait for the calculated delay
-                Thread.sleep(retryDelay);
+    private void scheduleCandidates(
+            List<DappTransactionRepository.RetryCandidate> candidates,
+            long initialDelay,
+            boolean replacement) {
+        for (DappTransactionRepository.RetryCandidate candidate : candidates) {
+            if (candidate.getNextAttemptAt() != null) {
+                if (!candidate.getNextAttemptAt().equals(scheduled.get(candidate.getId()))) {
+                    schedule(candidate.getId(), candidate.getNextAttemptAt(), replacement);
+                }
+                continue;
+            }
 
-                // Update gas price for retry
-                BigInteger currentGasPrice = web3j.ethGasPrice().send().getGasPrice();
-                BigInteger newGasPrice = currentGasPrice.multiply(BigInteger.valueOf(120)).divide(BigInteger.valueOf(100)); // 20% increase
+            // Calculate retry delay with exponential backoff
+            int retryCount = candidate.getRetryCount() != null ? candidate.getRetryCount() : 0;
+            long retryDelay = (long) (initialDelay * Math.pow(RETRY_DELAY_MULTIPLIER, retryCount));
+            LocalDateTime nextAttemptAt = LocalDateTime.now().plus(Duration.ofMillis(retryDelay))
+                    .truncatedTo(ChronoUnit.MILLIS);
 
-                // Prepare transaction for retry
-                transaction.setStatus(DappTransaction.TransactionStatus.PENDING);
-                transaction.setRetryCount(retryCount + 1);
-                transaction.setGasPrice(newGasPrice);
-                transaction = dappTransactionRepository.save(transaction);
+            // Another node may have scheduled it first, the next scan picks up its time
+            if (dappTransactionRepository.scheduleRetry(candidate.getId(), nextAttemptAt) == 1) {
+                schedule(candidate.getId(), nextAttemptAt, replacement);
+            }
+        }
+    }
 
-                log.info("Retrying transaction {} (attempt {}/{})",
-                        transaction.getId(), retryCount + 1, MAX_RETRIES);
+    int getScheduledCount() {
+        return scheduled.size();
+    }
 
-                // Resubmit transaction with new gas price
-                TransactionReceipt receipt = resubmitTransaction(transaction);
+    private void schedule(Long transactionId, LocalDateTime nextAttemptAt, boolean replacement) {
+        scheduled.put(transactionId, nextAttemptAt);
+        wheel.schedule(new ScheduledRetry(transactionId, nextAttemptAt, replacement), toEpochMillis(nextAttemptAt));
+    }
 
-                if (receipt != null && receipt.isStatusOK()) {
-                    transaction.setStatus(DappTransaction.TransactionStatus.CONFIRMED);
-                    transaction.setTransactionHash(receipt.getTransactionHash());
-                    transaction.setBlockNumber(receipt.getBlockNumber().longValue());
-                    transaction.setBlockHash(receipt.getBlockHash());
-                } else {
-                    transaction.setStatus(DappTransaction.TransactionStatus.FAILED);
-                    transaction.setErrorMessage("Retry failed");
+    private void tick() {
+        try {
+            for (ScheduledRetry retry : wheel.advance(System.currentTimeMillis())) {
+                if (!Objects.equals(scheduled.get(retry.transactionId), retry.nextAttemptAt)) {
+                    continue;
+                }
+                try {
+                    retryExecutor.execute(() -> {
+                        if (retry.replacement) {
+                            replaceTransaction(retry);
+                        } else {
+                            retryTransaction(retry);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // Keep the persisted attempt time, only the in-memory deadline moves
+                    wheel.schedule(retry, System.currentTimeMillis() + REJECTED_RETRY_DELAY);
                 }
+            }
+        } catch (Exception e) {
+            log.error("Error advancing transaction retry wheel", e);
+        }
+    }
 
-                dappTransactionRepository.save(transaction);
+    private void retryTransaction(ScheduledRetry retry) {
+        scheduled.remove(retry.transactionId, retry.nextAttemptAt);
 
-            } catch (Exception e) {
-                log.error("Error retrying transaction {}", transaction.getId(), e);
+        // Only the node whose claim succeeds performs this attempt
+        int claimed = dappTransactionRepository.claimRetry(
+                retry.transactionId,
+                retry.nextAttemptAt,
+                DappTransaction.TransactionStatus.FAILED,
+                DappTransaction.TransactionStatus.PENDING);
+        if (claimed == 0) {
+            return;
+        }
+        // Take the failed attempt back out of the analytics rollups before its fees change
+        rollupService.reconcile(Collections.singletonList(retry.transactionId));
+
+        DappTransaction transaction = dappTransactionRepository.findById(retry.transactionId).orElse(null);
+        if (transaction == null) {
+            return;
+        }
+
+        try {
+            // Raise fees past the node's replacement threshold in one step
+            GasFeeEngine.FeeEstimate fees = gasFeeEngine.replacement(
+                    transaction.getNetwork(),
+                    web3jFor(transaction.getNetwork()),
+                    toWei(transaction.getMaxFeePerGas() != null ? transaction.getMaxFeePerGas() : transaction.getGasPrice()),
+                    toWei(transaction.getMaxPriorityFeePerGas() != null ? transaction.getMaxPriorityFeePerGas() : transaction.getGasPrice()));
+
+            // Prepare transaction for retry
+            transaction.setMaxFeePerGas(new BigDecimal(fees.getMaxFeePerGas()));
+            transaction.setMaxPriorityFeePerGas(new BigDecimal(fees.getMaxPriorityFeePerGas()));
+            transaction.setGasPrice(new BigDecimal(fees.getMaxFeePerGas()));
+            transaction = dappTransactionRepository.save(transaction);
+
+            log.info("Retrying transaction {} (attempt {}/{})",
+                    transaction.getId(), transaction.getRetryCount(), MAX_RETRIES);
+
+            // Resubmit transaction with new gas price
+            TransactionReceipt receipt = resubmitTransaction(transaction);
+
+            if (receipt != null && receipt.isStatusOK()) {
+                transaction.setStatus(DappTransaction.TransactionStatus.CONFIRMED);
+                transaction.setTransactionHash(receipt.getTransactionHash());
+                transaction.setBlockNumber(receipt.getBlockNumber().longValue());
+                transaction.setBlockHash(receipt.getBlockHash());
+            } else {
                 transaction.setStatus(DappTransaction.TransactionStatus.FAILED);
-                transaction.setErrorMessage("Retry error: " + e.getMessage());
-                dappTransactionRepository.save(transaction);
+                transaction.setErrorMessage("Retry failed");
             }
-        });
+
+            dappTransactionRepository.save(transaction);
+
+        } catch (Exception e) {
+            log.error("Error retrying transaction {}", transaction.getId(), e);
+            transaction.setStatus(DappTransaction.TransactionStatus.FAILED);
+            transaction.setErrorMessage("Retry error: " + e.getMessage());
+            dappTransactionRepository.save(transaction);
+        }
+    }
+
+    private void replaceTransaction(ScheduledRetry retry) {
+        scheduled.remove(retry.transactionId, retry.nextAttemptAt);
+
+        // Only the lease owner broadcasts the replacement, so the node polling the transaction
+        // is the one whose index learns the new hash
+        int claimed = dappTransactionRepository.claimReplacement(
+                retry.transactionId, retry.nextAttemptAt, DappTransaction.TransactionStatus.PENDING,
+                leaseManager.getNodeId());
+        if (claimed == 0) {
+            return;
+        }
+
+        DappTransaction transaction = dappTransactionRepository.findById(retry.transactionId).orElse(null);
+        if (transaction == null) {
+            return;
+        }
+
+        try {
+            GasFeeEngine.FeeEstimate fees = gasFeeEngine.replacement(
+                    transaction.getNetwork(),
+                    web3jFor(transaction.getNetwork()),
+                    toWei(transaction.getMaxFeePerGas() != null ? transaction.getMaxFeePerGas() : transaction.getGasPrice()),
+                    toWei(transaction.getMaxPriorityFeePerGas() != null ? transaction.getMaxPriorityFeePerGas() : transaction.getGasPrice()));
+
+            String replacedHash = transaction.getTransactionHash();
+            String newHash = broadcastReplacement(transaction, fees);
+
+            // Keep the replaced hash, it can still be the one that gets mined
+            replacementRepository.save(new TransactionReplacement(
+                    null, transaction.getId(), replacedHash,
+                    transaction.getMaxFeePerGas(), transaction.getMaxPriorityFeePerGas(), null));
+            pendingIndex.onReplaced(transaction.getId(), replacedHash);
+
+            transaction.setTransactionHash(newHash);
+            transaction.setMaxFeePerGas(new BigDecimal(fees.getMaxFeePerGas()));
+            transaction.setMaxPriorityFeePerGas(new BigDecimal(fees.getMaxPriorityFeePerGas()));
+            transaction.setGasPrice(new BigDecimal(fees.getMaxFeePerGas()));
+            dappTransactionRepository.save(transaction);
+
+            log.info("Replaced transaction {} nonce {} with {} (attempt {}/{})",
+                    transaction.getId(), transaction.getNonce(), newHash, transaction.getRetryCount(), MAX_RETRIES);
+        } catch (Exception e) {
+            // The transaction stays pending under its current hash and is picked up again later
+            log.error("Error replacing transaction {}", transaction.getId(), e);
+        }
+    }
+
+    private String broadcastReplacement(DappTransaction transaction, GasFeeEngine.FeeEstimate fees) throws Exception {
+        // Without the original calldata the replacement would be a different transaction
+        if (transaction.getInputData() == null) {
+            throw new IllegalStateException("No calldata stored for transaction " + transaction.getId());
+        }
+        Web3j client = web3jFor(transaction.getNetwork());
+        Credentials credentials = Credentials.create(walletKeyService.decryptKey(
+                walletKeyService.getWalletKey(transaction.getWalletAddress()).getEncryptedPrivateKey()));
+        long chainId = resolveChainId(transaction.getNetwork(), client);
+        String to = transaction.getContractAddress() != null ? transaction.getContractAddress() : transaction.getToAddress();
+        BigInteger value = transaction.getValue() != null
+                ? Convert.toWei(transaction.getValue(), Convert.Unit.ETHER).toBigInteger()
+                : BigInteger.ZERO;
+        BigInteger gasLimit = transaction.getGasLimit() != null
+                ? BigInteger.valueOf(transaction.getGasLimit())
+                : gasProvider.getGasLimit(transaction.getFunctionName());
+        String data = transaction.getInputData();
+
+        RawTransaction rawTransaction = fees.isLegacy()
+                ? RawTransaction.createTransaction(BigInteger.valueOf(transaction.getNonce()),
+                        fees.getMaxFeePerGas(), gasLimit, to, value, data)
+                : RawTransaction.createTransaction(chainId, BigInteger.valueOf(transaction.getNonce()),
+                        gasLimit, to, value, data, fees.getMaxPriorityFeePerGas(), fees.getMaxFeePerGas());
+        byte[] signed = TransactionEncoder.signMessage(rawTransaction, chainId, credentials);
+
+        EthSendTransaction response = client.ethSendRawTransaction(Numeric.toHexString(signed)).send();
+        if (response.hasError()) {
+            throw new IllegalStateException("Replacement rejected: " + response.getError().getMessage());
+        }
+        return response.getTransactionHash();
+    }
+
+    private long resolveChainId(String networkId, Web3j client) throws Exception {
+        NetworkConfig.NetworkProperties networkProps = networkProperties(networkId);
+        if (networkProps != null && networkProps.getChainId() != null) {
+            return Long.parseLong(networkProps.getChainId());
+        }
+        return client.ethChainId().send().getChainId().longValue();
+    }
+
+    /**
+     * The client for a transaction's network, built from its RPC url like the monitor
+     * pipeline's. Rows without a network use the default client; a network that is not
+     * configured is refused rather than sent to another chain.
+     */
+    private Web3j web3jFor(String networkId) {
+        if (networkId == null) {
+            return web3j;
+        }
+        NetworkConfig.NetworkProperties networkProps = networkProperties(networkId);
+        if (networkProps == null || networkProps.getRpcUrl() == null) {
+            throw new IllegalStateException("No RPC configured for network " + networkId);
+        }
+        return web3jClients.computeIfAbsent(networkId, k -> Web3j.build(new HttpService(networkProps.getRpcUrl())));
+    }
+
+    private NetworkConfig.NetworkProperties networkProperties(String networkId) {
+        return networkConfig.getNetworks() != null && networkId != null
+                ? networkConfig.getNetworkProperties(networkId)
+                : null;
     }
 
     private TransactionReceipt resubmitTransaction(DappTransaction transaction) {
         try {
             // Implement transaction resubmission logic based on transaction type
-            switch (transaction.getTransactionType()) {
-                case NFT_PURCHASE:
-                case NFT_SALE:
+            switch (transaction.getType()) {
+                case NFT_BUY:
+                case NFT_SELL:
                     return resubmitNFTTransaction(transaction);
-                case TOKEN_TRANSFER:
+                case TRANSFER:
                     return resubmitTokenTransfer(transaction);
                 default:
-                    log.warn("Unsupported transaction type for retry: {}", transaction.getTransactionType());
+                    log.warn("Unsupported transaction type for retry: {}", transaction.getType());
                     return null;
             }
         } catch (Exception e) {
@@ -138,4 +434,24 @@ public class TransactionRetryService {
         // This would interact with the ERC20 contract
         return null; // Placeholder
     }
-}
\ No newline at end of file
+
+    private BigInteger toWei(BigDecimal amount) {
+        return amount != null ? amount.toBigInteger() : BigInteger.ZERO;
+    }
+
+    private long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static class ScheduledRetry {
+        private final Long transactionId;
+        private final LocalDateTime nextAttemptAt;
+        private final boolean replacement; // same-nonce rebroadcast of a pending transaction
+
+        ScheduledRetry(Long transactionId, LocalDateTime nextAttemptAt, boolean replacement) {
+            this.transactionId = transactionId;
+            this.nextAttemptAt = nextAttemptAt;
+            this.replacement = replacement;
+        }
+    }
+}
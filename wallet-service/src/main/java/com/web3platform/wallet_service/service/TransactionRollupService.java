@@ -0,0 +1,130 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.model.DappTransaction;
+import com.web3platform.wallet_service.repository.DappTransactionRepository;
+import com.web3platform.wallet_service.repository.TransactionRollupRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the per-(user, network, day, type) rollups and the confirmation-latency sketches
+ * current. Every path that moves a transaction into or out of a terminal state reconciles it
+ * here; the periodic sweep catches transactions changed by bulk updates and backfills rows
+ * that predate the rollups.
+ */
+@Slf4j
+@Service
+public class TransactionRollupService {
+
+    public static final Set<DappTransaction.TransactionStatus> TERMINAL = EnumSet.complementOf(
+            EnumSet.copyOf(PendingTransactionIndex.IN_FLIGHT));
+
+    @Autowired
+    private TransactionRollupRepository rollupRepository;
+
+    @Autowired
+    private DappTransactionRepository dappTransactionRepository;
+
+    @Autowired
+    private ConfirmationLatencyService latencyService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${analytics.rollup.sweep-batch-size:1000}")
+    private int sweepBatchSize;
+
+    private TransactionTemplate requiresNew;
+
+    @PostConstruct
+    public void init() {
+        requiresNew = new TransactionTemplate(transactionManager);
+        // Also used from afterCommit, where the committed transaction's resources are still bound
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Brings the rollups in line with the current status of the given transactions, which
+     * were just moved there by the caller.
+     */
+    public void reconcile(Collection<Long> transactionIds) {
+        reconcile(transactionIds, true);
+    }
+
+    private void reconcile(Collection<Long> transactionIds, boolean measure) {
+        if (transactionIds.isEmpty()) {
+            return;
+        }
+        List<TransactionRollupRepository.CountedLatency> latencies = requiresNew.execute(status -> {
+            rollupRepository.retract(transactionIds);
+            return rollupRepository.rollUp(transactionIds, LocalDateTime.now(), measure);
+        });
+        // Recorded only for transactions this call counted, so each confirmation is sampled once
+        if (latencies != null) {
+            latencies.forEach(latency ->
+                    latencyService.record(latency.getNetwork(), latency.getDappName(), latency.getMillis()));
+        }
+    }
+
+    /**
+     * Called for every saved transaction. Terminal transactions, and counted ones that left
+     * their counted status, are reconciled once the saving transaction has committed.
+     */
+    public void onSaved(DappTransaction transaction) {
+        boolean terminal = TERMINAL.contains(transaction.getStatus());
+        boolean miscounted = transaction.getRollupStatus() != null
+                && transaction.getRollupStatus() != transaction.getStatus();
+        if (transaction.getId() == null || !(terminal || miscounted)) {
+            return;
+        }
+
+        List<Long> ids = Collections.singletonList(transaction.getId());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reconcile(ids, true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    reconcile(ids, true);
+                } catch (Exception e) {
+                    // The sweep picks it up
+                    log.warn("Failed to update rollups for transaction {}", transaction.getId(), e);
+                }
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.rollup.sweep-ms:60000}")
+    public void sweep() {
+        List<Long> miscounted = dappTransactionRepository.findMiscountedIds(PageRequest.of(0, sweepBatchSize));
+        if (!miscounted.isEmpty()) {
+            reconcile(miscounted, false);
+        }
+
+        // The moment these became terminal is unknown, so their confirmation time is not measured
+        List<Long> uncounted = dappTransactionRepository.findUncountedIds(TERMINAL, PageRequest.of(0, sweepBatchSize));
+        if (!uncounted.isEmpty()) {
+            reconcile(uncounted, false);
+            log.info("Added {} transactions to the analytics rollups", uncounted.size());
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.dto.TransactionSeriesRow;
+import com.web3platform.wallet_service.model.DappTransaction;
+import com.web3platform.wallet_service.repository.DappTransactionRepository;
+import com.web3platform.wallet_service.util.Int128Sum;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory columnar copy of each active user's transactions, used to serve gas and volume
+ * series without touching the database. A user's columns are loaded from a streamed
+ * projection on first use and then kept current from this node's committed saves and monitor
+ * transitions. Writes made by other nodes, or by bulk updates that bypass both, are picked up
+ * by reloading columns older than the configured TTL; the least recently used users are
+ * evicted beyond the configured limit.
+ */
+@Slf4j
+@Service
+public class TransactionSeriesStore {
+
+    public enum SeriesInterval {
+        HOURLY(3_600_000L),
+        DAILY(86_400_000L);
+
+        private final long millis;
+
+        SeriesInterval(long millis) {
+            this.millis = millis;
+        }
+    }
+
+    private static final DappTransaction.TransactionStatus[] STATUSES = DappTransaction.TransactionStatus.values();
+    private static final int NO_CODE = -1;
+
+    @Autowired
+    private DappTransactionRepository dappTransactionRepository;
+
+    @Value("${analytics.series.max-users:1000}")
+    private int maxUsers;
+
+    @Value("${analytics.series.max-buckets:10000}")
+    private int maxBuckets;
+
+    @Value("${analytics.series.ttl-ms:60000}")
+    private long ttlMillis;
+
+    private final Map<Long, UserColumns> users = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, UserColumns> eldest) {
+            return size() > maxUsers;
+        }
+    };
+
+    // Networks and dapp names are stored as codes into this dictionary
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private int nextCode;
+
+    /**
+     * Buckets a user's transactions in [startDate, endDate) by hour or day, optionally
+     * narrowed to a network and dapp. Only buckets with transactions are returned.
+     */
+    @Transactional(readOnly = true)
+    public TransactionSeries getSeries(
+            Long userId,
+            String network,
+            String dappName,
+            SeriesInterval interval,
+            LocalDateTime startDate,
+            LocalDateTime endDate) {
+        long start = Math.floorDiv(toMillis(startDate), interval.millis) * interval.millis;
+        long end = toMillis(endDate);
+        long bucketCount = Math.max(0, Math.floorDiv(end - 1 - start, interval.millis) + 1);
+        if (bucketCount > maxBuckets) {
+            throw new IllegalArgumentException(
+                    String.format("Range spans %d buckets, at most %d are allowed", bucketCount, maxBuckets));
+        }
+
+        UserColumns columns = columnsFor(userId);
+        Integer networkCode = network != null ? codes.get(network) : Integer.valueOf(NO_CODE);
+        Integer dappCode = dappName != null ? codes.get(dappName) : Integer.valueOf(NO_CODE);
+        if (networkCode == null || dappCode == null) {
+            // No transaction was ever stored with that network or dapp
+            return new TransactionSeries(interval, new ArrayList<>());
+        }
+        return new TransactionSeries(interval, columns.bucket(
+                start, end, interval.millis, (int) bucketCount, networkCode, dappCode));
+    }
+
+    /**
+     * Applies a saved transaction to its user's columns, if they are loaded, once the saving
+     * transaction has committed.
+     */
+    public void onSaved(DappTransaction transaction) {
+        if (transaction.getId() == null || transaction.getUserId() == null) {
+            return;
+        }
+        // Copied now, the entity may change again before the commit
+        TransactionSeriesRow row = new TransactionSeriesRow(
+                transaction.getId(),
+                transaction.getTimestamp(),
+                transaction.getNetwork(),
+                transaction.getDappName(),
+                transaction.getStatus(),
+                transaction.getGasPrice(),
+                transaction.getGasLimit(),
+                transaction.getValue());
+        Long userId = transaction.getUserId();
+        afterCommit(() -> {
+            UserColumns columns = loadedColumns(userId);
+            if (columns != null) {
+                columns.upsert(toRow(row), true);
+            }
+        });
+    }
+
+    /**
+     * Applies a status change made by a bulk update, which bypasses entity saves.
+     */
+    public void onStatusChanged(Long userId, Long transactionId, DappTransaction.TransactionStatus status) {
+        afterCommit(() -> {
+            UserColumns columns = loadedColumns(userId);
+            if (columns != null) {
+                columns.updateStatus(transactionId, (byte) status.ordinal());
+            }
+        });
+    }
+
+    // A rolled back write never reaches the columns
+    private void afterCommit(Runnable update) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    int getUserCount() {
+        synchronized (users) {
+            return users.size();
+        }
+    }
+
+    private UserColumns loadedColumns(Long userId) {
+        synchronized (users) {
+            return userId != null ? users.get(userId) : null;
+        }
+    }
+
+    private UserColumns columnsFor(Long userId) {
+        UserColumns columns;
+        synchronized (users) {
+            UserColumns current = users.get(userId);
+            if (current == null || current.isExpired(System.currentTimeMillis(), ttlMillis)) {
+                // Replaced rather than cleared, so readers of the old columns are not disturbed
+                current = new UserColumns();
+                users.put(userId, current);
+            }
+            columns = current;
+        }
+        // Updates arriving while the columns load are applied right away and win over the
+        // snapshot, since they are at least as recent
+        synchronized (columns.loadLock) {
+            if (!columns.loaded) {
+                try (Stream<TransactionSeriesRow> rows = dappTransactionRepository.streamSeriesRows(userId)) {
+                    rows.forEach(row -> columns.upsert(toRow(row), false));
+                }
+                columns.loadedAt = System.currentTimeMillis();
+                columns.loaded = true;
+                log.debug("Loaded {} transactions of user {} into the series store", columns.size, userId);
+            }
+        }
+        return columns;
+    }
+
+    private Row toRow(TransactionSeriesRow source) {
+        Row row = new Row();
+        row.id = source.getId();
+        row.timestamp = source.getTimestamp() != null ? toMillis(source.getTimestamp()) : 0;
+        row.network = source.getNetwork() != null ? codeOf(source.getNetwork()) : NO_CODE;
+        row.dapp = source.getDappName() != null ? codeOf(source.getDappName()) : NO_CODE;
+        row.status = (byte) (source.getStatus() != null ? source.getStatus().ordinal() : 0);
+        row.gasPrice = TransactionAnalyticsAccumulator.toWei(source.getGasPrice());
+        row.gasLimit = source.getGasLimit() != null ? source.getGasLimit() : -1;
+        row.value = source.getValue() != null ? source.getValue().doubleValue() : 0;
+        return row;
+    }
+
+    private int codeOf(String name) {
+        Integer code = codes.get(name);
+        if (code != null) {
+            return code;
+        }
+        synchronized (codes) {
+            return codes.computeIfAbsent(name, key -> nextCode++);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static class Row {
+        long id;
+        long timestamp;
+        int network;
+        int dapp;
+        byte status;
+        long gasPrice;
+        long gasLimit;
+        double value;
+    }
+
+    /**
+     * One user's transactions as parallel primitive arrays, sorted by id so that new
+     * transactions append and updates are found by binary search.
+     */
+    static class UserColumns {
+        private final Object loadLock = new Object();
+        private volatile boolean loaded;
+        private volatile long loadedAt;
+
+        private int size;
+        private long[] ids = new long[16];
+        private long[] timestamps = new long[16]; // epoch millis of created_at
+        private int[] networks = new int[16];
+        private int[] dapps = new int[16];
+        private byte[] statuses = new byte[16];
+        private long[] gasPrices = new long[16]; // wei, -1 when unknown
+        private long[] gasLimits = new long[16];
+        private double[] values = new double[16];
+
+        boolean isExpired(long now, long ttlMillis) {
+            return loaded && now - loadedAt > ttlMillis;
+        }
+
+        synchronized void upsert(Row row, boolean replace) {
+            int index = size > 0 && ids[size - 1] < row.id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, row.id);
+            if (index >= 0) {
+                if (!replace) {
+                    return;
+                }
+            } else {
+                index = -(index + 1);
+                grow();
+                int tail = size - index;
+                if (tail > 0) {
+                    System.arraycopy(ids, index, ids, index + 1, tail);
+                    System.arraycopy(timestamps, index, timestamps, index + 1, tail);
+                    System.arraycopy(networks, index, networks, index + 1, tail);
+                    System.arraycopy(dapps, index, dapps, index + 1, tail);
+                    System.arraycopy(statuses, index, statuses, index + 1, tail);
+                    System.arraycopy(gasPrices, index, gasPrices, index + 1, tail);
+                    System.arraycopy(gasLimits, index, gasLimits, index + 1, tail);
+                    System.arraycopy(values, index, values, index + 1, tail);
+                }
+                size++;
+            }
+            ids[index] = row.id;
+            timestamps[index] = row.timestamp;
+            networks[index] = row.network;
+            dapps[index] = row.dapp;
+            statuses[index] = row.status;
+            gasPrices[index] = row.gasPrice;
+            gasLimits[index] = row.gasLimit;
+            values[index] = row.value;
+        }
+
+        synchronized void updateStatus(long id, byte status) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                statuses[index] = status;
+            }
+        }
+
+        synchronized List<SeriesPoint> bucket(
+                long start, long end, long bucketMillis, int bucketCount, int network, int dapp) {
+            int[] counts = new int[bucketCount];
+            int[] confirmed = new int[bucketCount];
+            int[] failed = new int[bucketCount];
+            Int128Sum[] gas = new Int128Sum[bucketCount];
+            double[] volume = new double[bucketCount];
+
+            for (int i = 0; i < size; i++) {
+                long timestamp = timestamps[i];
+                if (timestamp < start || timestamp >= end
+                        || (network != NO_CODE && networks[i] != network)
+                        || (dapp != NO_CODE && dapps[i] != dapp)) {
+                    continue;
+                }
+                int bucket = (int) ((timestamp - start) / bucketMillis);
+                counts[bucket]++;
+                DappTransaction.TransactionStatus status = STATUSES[statuses[i]];
+                if (status == DappTransaction.TransactionStatus.CONFIRMED) {
+                    confirmed[bucket]++;
+                } else if (status == DappTransaction.TransactionStatus.FAILED) {
+                    failed[bucket]++;
+                }
+                if (gasPrices[i] >= 0 && gasLimits[i] >= 0) {
+                    if (gas[bucket] == null) {
+                        gas[bucket] = new Int128Sum();
+                    }
+                    gas[bucket].addProduct(gasPrices[i], gasLimits[i]);
+                }
+                volume[bucket] += values[i];
+            }
+
+            List<SeriesPoint> points = new ArrayList<>();
+            for (int bucket = 0; bucket < bucketCount; bucket++) {
+                if (counts[bucket] > 0) {
+                    points.add(new SeriesPoint(
+                            LocalDateTime.ofEpochSecond((start + bucket * bucketMillis) / 1000, 0, ZoneOffset.UTC),
+                            counts[bucket],
+                            confirmed[bucket],
+                            failed[bucket],
+                            gas[bucket] != null ? new BigDecimal(gas[bucket].toBigInteger()) : BigDecimal.ZERO,
+                            volume[bucket]));
+                }
+            }
+            return points;
+        }
+
+        private void grow() {
+            if (size < ids.length) {
+                return;
+            }
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            networks = Arrays.copyOf(networks, capacity);
+            dapps = Arrays.copyOf(dapps, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            gasPrices = Arrays.copyOf(gasPrices, capacity);
+            gasLimits = Arrays.copyOf(gasLimits, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    @Data
+    public static class TransactionSeries {
+        private final SeriesInterval interval;
+        private final List<SeriesPoint> points;
+    }
+
+    @Data
+    public static class SeriesPoint {
+        private final LocalDateTime bucketStart;
+        private final int transactionCount;
+        private final int confirmedCount;
+        private final int failedCount;
+        private final BigDecimal gasSpent; // wei
+        private final double volume; // sum of transaction values
+    }
+}
@@ -2,66 +2,96 @@ package com.web3platform.wallet_service.service;
 
 import com.web3platform.wallet_service.model.DappTransaction;
 import com.web3platform.wallet_service.repository.DappTransactionRepository;
+import com.web3platform.wallet_service.dto.CursorPage;
 import com.web3platform.wallet_service.dto.TransactionDTO;
+import com.web3platform.wallet_service.dto.TransactionSummaryDTO;
+import com.web3platform.wallet_service.util.TransactionCursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
-import java.util.stream.Collectors;
 
+/**
+ * Listings select only the summary columns into DTOs, in read-only transactions where the
+ * session is never flushed; only {@link #getTransactionDetails(Long)} loads a full entity.
+ */
 @Service
 public class TransactionService {
 
     @Autowired
     private DappTransactionRepository transactionRepository;
 
-    public List<TransactionDTO> getRecentTransactions(int limit) {
-        return transactionRepository.findAll(
-            PageRequest.of(0, limit, Sort.by("timestamp").descending())
-        ).getContent().stream()
-            .map(TransactionDTO::fromEntity)
-            .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public List<TransactionSummaryDTO> getRecentTransactions(int limit) {
+        return transactionRepository.findRecentSummaries(PageRequest.of(0, limit));
     }
 
+    // Polled right after a submission, so read from the primary rather than a lagging replica
     public TransactionDTO getTransactionDetails(Long transactionId) {
         DappTransaction transaction = transactionRepository.findById(transactionId)
             .orElseThrow(() -> new RuntimeException("Transaction not found"));
         return TransactionDTO.fromEntity(transaction);
     }
 
-    public Page<TransactionDTO> getTransactionsByUser(Long userId, int page, int size) {
-        return transactionRepository.findByUserId(userId, PageRequest.of(page, size, Sort.by("timestamp").descending()))
-            .map(TransactionDTO::fromEntity);
+    @Transactional(readOnly = true)
+    public Page<TransactionSummaryDTO> getTransactionsByUser(Long userId, int page, int size) {
+        return transactionRepository.findSummariesByUserId(userId, PageRequest.of(page, size));
     }
 
-    public Page<TransactionDTO> getTransactionsByWallet(String walletAddress, int page, int size) {
-        return transactionRepository.findByWalletAddress(walletAddress, PageRequest.of(page, size, Sort.by("timestamp").descending()))
-            .map(TransactionDTO::fromEntity);
+    @Transactional(readOnly = true)
+    public Page<TransactionSummaryDTO> getTransactionsByWallet(String walletAddress, int page, int size) {
+        return transactionRepository.findSummariesByWalletAddress(walletAddress, PageRequest.of(page, size));
     }
 
-    public Page<TransactionDTO> getTransactionsByStatus(DappTransaction.TransactionStatus status, int page, int size) {
-        return transactionRepository.findByStatus(status, PageRequest.of(page, size, Sort.by("timestamp").descending()))
-            .map(TransactionDTO::fromEntity);
+    /**
+     * Keyset variant of {@link #getTransactionsByUser(Long, int, int)}: returns the transactions
+     * after the given cursor, or the newest ones when it is null, without counting the total.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionSummaryDTO> getTransactionsByUser(Long userId, String cursor, int size) {
+        TransactionCursor after = TransactionCursor.decode(cursor);
+        return toCursorPage(transactionRepository.findByUserIdAfter(
+                userId, after.getTimestamp(), after.getId(), PageRequest.of(0, size)));
     }
 
-    public Page<TransactionDTO> getTransactionsByType(DappTransaction.TransactionType type, int page, int size) {
-        return transactionRepository.findByType(type, PageRequest.of(page, size, Sort.by("timestamp").descending()))
-            .map(TransactionDTO::fromEntity);
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionSummaryDTO> getTransactionsByWallet(String walletAddress, String cursor, int size) {
+        TransactionCursor after = TransactionCursor.decode(cursor);
+        return toCursorPage(transactionRepository.findByWalletAddressAfter(
+                walletAddress, after.getTimestamp(), after.getId(), PageRequest.of(0, size)));
     }
 
-    public Page<TransactionDTO> getTransactionsByTypeAndStatus(
+    @Transactional(readOnly = true)
+    public Page<TransactionSummaryDTO> getTransactionsByStatus(DappTransaction.TransactionStatus status, int page, int size) {
+        return transactionRepository.findSummariesByStatus(status, PageRequest.of(page, size));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<TransactionSummaryDTO> getTransactionsByType(DappTransaction.TransactionType type, int page, int size) {
+        return transactionRepository.findSummariesByType(type, PageRequest.of(page, size));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<TransactionSummaryDTO> getTransactionsByTypeAndStatus(
             DappTransaction.TransactionType type,
             DappTransaction.TransactionStatus status,
             int page,
             int size) {
-        return transactionRepository.findByTypeAndStatus(type, status, PageRequest.of(page, size, Sort.by("timestamp").descending()))
-            .map(TransactionDTO::fromEntity);
+        return transactionRepository.findSummariesByTypeAndStatus(type, status, PageRequest.of(page, size));
     }
 
-    public List<TransactionDTO> getTransactions(String type, String status, int page, int size) {
+    public List<TransactionSummaryDTO> getTransactions(String type, String status, int page, int size) {
       // TODO Auto-generated method stub
       throw new UnsupportedOperationException("Unimplemented method 'getTransactions'");
     }
-}
\ No newline at end of file
+
+    private static CursorPage<TransactionSummaryDTO> toCursorPage(Slice<TransactionSummaryDTO> slice) {
+        return new CursorPage<>(
+            slice.getContent(),
+            TransactionCursor.next(slice, t -> new TransactionCursor(t.getTimestamp(), t.getId())),
+            slice.hasNext());
+    }
+}
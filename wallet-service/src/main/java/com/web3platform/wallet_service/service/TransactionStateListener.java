@@ -0,0 +1,46 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.model.DappTransaction;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the {@link PendingTransactionIndex}, the analytics rollups and the series store in
+ * sync with every transaction that is submitted or changes status through the repository.
+ * New pending transactions are also leased to the node that submitted them.
+ */
+@Component
+public class TransactionStateListener {
+
+    @Lazy
+    @Autowired
+    private PendingTransactionIndex pendingTransactionIndex;
+
+    @Lazy
+    @Autowired
+    private TransactionRollupService rollupService;
+
+    @Lazy
+    @Autowired
+    private TransactionSeriesStore seriesStore;
+
+    @Lazy
+    @Autowired
+    private TransactionLeaseManager leaseManager;
+
+    @PostPersist
+    public void onInserted(DappTransaction transaction) {
+        onSaved(transaction);
+        leaseManager.onInserted(transaction);
+    }
+
+    @PostUpdate
+    public void onSaved(DappTransaction transaction) {
+        pendingTransactionIndex.onSaved(transaction);
+        rollupService.onSaved(transaction);
+        seriesStore.onSaved(transaction);
+    }
+}
@@ -0,0 +1,120 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.model.DappTransaction;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes monitor status updates over WebSocket. Only real transitions (or a change in the
+ * confirmation count) are emitted, and updates for the same user are coalesced into one
+ * frame per flush window.
+ */
+@Slf4j
+@Service
+public class TransactionStatusNotifier {
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    private static final String WS_TRANSACTION_TOPIC = "/topic/transactions/";
+
+    // Last state sent per transaction, e.g. "mined:3"
+    private final Map<Long, String> lastEmitted = new ConcurrentHashMap<>();
+    // Updates waiting for the next flush, latest update per transaction wins
+    private final Map<Long, Map<Long, TransactionStatusUpdate>> outbox = new ConcurrentHashMap<>();
+
+    /**
+     * Queues a status update unless the transaction was already reported in the same state.
+     * Returns whether the update was queued.
+     */
+    public boolean publish(PendingTransactionIndex.TrackedTransaction transaction, String status, long confirmations, String message) {
+        String state = status + ":" + confirmations;
+        if (state.equals(lastEmitted.put(transaction.getId(), state))) {
+            return false;
+        }
+
+        TransactionStatusUpdate update = new TransactionStatusUpdate(
+                transaction.getId(),
+                transaction.getTransactionHash(),
+                status,
+                message,
+                System.currentTimeMillis(),
+                transaction.getNetwork()
+        );
+        outbox.compute(transaction.getUserId(), (userId, pending) -> {
+            Map<Long, TransactionStatusUpdate> updates = pending != null ? pending : new LinkedHashMap<>();
+            updates.put(update.getTransactionId(), update);
+            return updates;
+        });
+
+        if (isTerminal(transaction.getStatus())) {
+            // No further updates will follow, nothing left to compare against
+            lastEmitted.remove(transaction.getId());
+        }
+
+        log.debug("Transaction {} status update on {}: {} - {}",
+                transaction.getId(), transaction.getNetwork(), status, message);
+        return true;
+    }
+
+    /**
+     * Drops the remembered state of a transaction this node stopped tracking.
+     */
+    public void forget(Long transactionId) {
+        lastEmitted.remove(transactionId);
+    }
+
+    @Scheduled(fixedDelayString = "${monitor.notify.coalesce-window-ms:250}")
+    public void flush() {
+        for (Long userId : outbox.keySet()) {
+            Map<Long, TransactionStatusUpdate> updates = outbox.remove(userId);
+            if (updates == null || updates.isEmpty()) {
+                continue;
+            }
+
+            try {
+                // Send WebSocket notification
+                TransactionStatusBatch batch = new TransactionStatusBatch(
+                        new ArrayList<>(updates.values()), System.currentTimeMillis());
+                messagingTemplate.convertAndSend(WS_TRANSACTION_TOPIC + userId, batch);
+                log.info("Sent {} transaction status updates to user {}", updates.size(), userId);
+            } catch (Exception e) {
+                log.error("Error sending transaction status updates to user {}", userId, e);
+            }
+        }
+    }
+
+    int getTrackedCount() {
+        return lastEmitted.size();
+    }
+
+    private boolean isTerminal(DappTransaction.TransactionStatus status) {
+        return !PendingTransactionIndex.IN_FLIGHT.contains(status);
+    }
+
+    @Data
+    public static class TransactionStatusBatch {
+        private final List<TransactionStatusUpdate> updates;
+        private final long timestamp;
+    }
+
+    @Data
+    public static class TransactionStatusUpdate {
+        private final Long transactionId;
+        private final String transactionHash;
+        private final String status;
+        private final String message;
+        private final long timestamp;
+        private final String network;
+    }
+}
@@ -0,0 +1,58 @@
+package com.web3platform.wallet_service.util;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size ring of recent canonical block hashes, indexed by block number. Lookups and
+ * writes are O(1); blocks older than the ring's capacity fall out of the window.
+ */
+public class BlockHashRing {
+
+    private final long[] numbers;
+    private final String[] hashes;
+    private final int mask;
+    private long highest = -1;
+
+    public BlockHashRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.numbers = new long[capacity];
+        this.hashes = new String[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(numbers, -1);
+    }
+
+    public synchronized void put(long number, String hash) {
+        int slot = (int) (number & mask);
+        numbers[slot] = number;
+        hashes[slot] = hash;
+        highest = Math.max(highest, number);
+    }
+
+    /**
+     * Returns the recorded hash of a block, or null when the block is outside the window.
+     */
+    public synchronized String get(long number) {
+        if (number > highest || number <= highest - numbers.length) {
+            return null;
+        }
+        int slot = (int) (number & mask);
+        return numbers[slot] == number ? hashes[slot] : null;
+    }
+
+    /**
+     * Forgets every block above {@code number}, used when the chain got shorter after a reorg.
+     */
+    public synchronized void truncateAbove(long number) {
+        highest = Math.min(highest, number);
+    }
+
+    public synchronized long getHighest() {
+        return highest;
+    }
+
+    public int capacity() {
+        return numbers.length;
+    }
+}
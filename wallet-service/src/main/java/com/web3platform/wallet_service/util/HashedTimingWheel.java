@@ -0,0 +1,87 @@
+package com.web3platform.wallet_service.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Hashed timing wheel. Deadlines are rounded up to ticks and hashed into a fixed ring of
+ * buckets, so scheduling is O(1) and advancing only touches the buckets whose ticks elapsed.
+ * The wheel does not own a thread; callers drive it with {@link #advance(long)}.
+ */
+public class HashedTimingWheel<T> {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final int mask;
+    private final List<LinkedList<Entry<T>>> buckets;
+    private long processedTick;
+    private int size;
+
+    public HashedTimingWheel(long tickMillis, int wheelSize, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick duration must be positive");
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = nowMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new LinkedList<>());
+        }
+        this.processedTick = 0;
+    }
+
+    public synchronized void schedule(T item, long deadlineMillis) {
+        long deadlineTick = (deadlineMillis - startMillis + tickMillis - 1) / tickMillis;
+        // Anything already due fires on the next advance
+        deadlineTick = Math.max(deadlineTick, processedTick + 1);
+        buckets.get((int) (deadlineTick & mask)).add(new Entry<>(item, deadlineTick));
+        size++;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis} and returns every item whose deadline has passed.
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long nowTick = (nowMillis - startMillis) / tickMillis;
+        List<T> expired = new ArrayList<>();
+        if (nowTick <= processedTick) {
+            return expired;
+        }
+
+        // After a long pause a single lap over the ring covers every elapsed tick
+        long lastTick = Math.min(nowTick, processedTick + buckets.size());
+        for (long tick = processedTick + 1; tick <= lastTick; tick++) {
+            Iterator<Entry<T>> iterator = buckets.get((int) (tick & mask)).iterator();
+            while (iterator.hasNext()) {
+                Entry<T> entry = iterator.next();
+                if (entry.deadlineTick <= nowTick) {
+                    expired.add(entry.item);
+                    iterator.remove();
+                    size--;
+                }
+            }
+        }
+        processedTick = nowTick;
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private static class Entry<T> {
+        private final T item;
+        private final long deadlineTick;
+
+        Entry(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.web3platform.wallet_service.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Mutable signed 128-bit sum held in two longs. Adding a long or the full product of two longs
+ * never allocates and never overflows for any realistic number of terms, which makes it
+ * suitable for summing wei amounts in tight loops.
+ */
+public class Int128Sum {
+
+    private long high;
+    private long low;
+
+    public void add(long value) {
+        add(value >> 63, value);
+    }
+
+    /**
+     * Adds the exact 128-bit product of two longs.
+     */
+    public void addProduct(long a, long b) {
+        add(Math.multiplyHigh(a, b), a * b);
+    }
+
+    public void add(Int128Sum other) {
+        add(other.high, other.low);
+    }
+
+    /**
+     * Adds an integral amount that may not fit in a long. Only meant for a handful of
+     * pre-aggregated values, as wide amounts go through BigInteger.
+     */
+    public void add(BigDecimal value) {
+        if (value == null || value.signum() == 0) {
+            return;
+        }
+        BigInteger integer = value.toBigInteger();
+        if (integer.bitLength() < 64) {
+            add(integer.longValue());
+        } else {
+            add(integer.shiftRight(64).longValue(), integer.longValue());
+        }
+    }
+
+    private void add(long otherHigh, long otherLow) {
+        long sum = low + otherLow;
+        long carry = Long.compareUnsigned(sum, low) < 0 ? 1 : 0;
+        low = sum;
+        high = high + otherHigh + carry;
+    }
+
+    public boolean isZero() {
+        return high == 0 && low == 0;
+    }
+
+    public BigInteger toBigInteger() {
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return BigInteger.valueOf(low);
+        }
+        BigInteger unsignedLow = BigInteger.valueOf(low >>> 1).shiftLeft(1).or(BigInteger.valueOf(low & 1));
+        return BigInteger.valueOf(high).shiftLeft(64).add(unsignedLow);
+    }
+}
@@ -0,0 +1,78 @@
+package com.web3platform.wallet_service.util;
+
+import com.web3platform.wallet_service.model.DappTransaction;
+import lombok.Data;
+import org.springframework.data.domain.Slice;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Position in a (timestamp, id) descending listing. Clients get it as an opaque url-safe token
+ * and hand it back unchanged to continue after the last row they received.
+ */
+@Data
+public class TransactionCursor {
+
+    private static final int TOKEN_BYTES = Long.BYTES + Integer.BYTES + Long.BYTES;
+
+    // Sorts after every stored row, so the first page is the same query as any other
+    public static final TransactionCursor FIRST =
+            new TransactionCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private final LocalDateTime timestamp;
+    private final Long id;
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(TOKEN_BYTES);
+        buffer.putLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(timestamp.getNano());
+        buffer.putLong(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Token continuing after the last row of the slice, or null when it was the last slice.
+     */
+    public static String next(Slice<DappTransaction> slice) {
+        return next(slice, t -> new TransactionCursor(t.getTimestamp(), t.getId()));
+    }
+
+    /**
+     * Same as {@link #next(Slice)} for slices of projections, given the cursor of a row.
+     */
+    public static <T> String next(Slice<T> slice, Function<T, TransactionCursor> cursorOf) {
+        if (!slice.hasNext() || slice.getContent().isEmpty()) {
+            return null;
+        }
+        return cursorOf.apply(slice.getContent().get(slice.getContent().size() - 1)).encode();
+    }
+
+    /**
+     * Returns the cursor for a token, or {@link #FIRST} when there is none.
+     */
+    public static TransactionCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return FIRST;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+        if (bytes.length != TOKEN_BYTES) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long seconds = buffer.getLong();
+        int nanos = buffer.getInt();
+        if (nanos < 0 || nanos > 999_999_999) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return new TransactionCursor(LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC), buffer.getLong());
+    }
+}
@@ -0,0 +1,106 @@
+-- Schema as generated by Hibernate (ddl-auto=update) for the entities before schema
+-- migrations were introduced. Existing databases are baselined at this version and only apply
+-- the migrations that follow.
+
+CREATE TABLE wallets (
+    id                    bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    address               varchar(255) NOT NULL UNIQUE,
+    balance               float(53)    NOT NULL,
+    network               varchar(255) NOT NULL,
+    is_active             boolean      NOT NULL,
+    created_at            timestamp(6) NOT NULL,
+    last_updated_at       timestamp(6),
+    user_id               bigint       NOT NULL,
+    encrypted_private_key text         NOT NULL
+);
+
+CREATE TABLE encrypted_wallet_key (
+    id                    bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    wallet_address        varchar(255) NOT NULL,
+    encrypted_private_key text         NOT NULL,
+    recovery_type         varchar(255) NOT NULL,
+    recovery_data         text,
+    is_active             boolean      NOT NULL,
+    created_at            timestamp(6) NOT NULL,
+    last_updated_at       timestamp(6),
+    user_id               bigint       NOT NULL
+);
+
+CREATE TABLE social_recovery_share (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    wallet_address  varchar(255) NOT NULL,
+    encrypted_share text         NOT NULL,
+    trustee_email   varchar(255) NOT NULL,
+    share_index     integer      NOT NULL,
+    total_shares    integer      NOT NULL,
+    is_verified     boolean      NOT NULL,
+    created_at      timestamp(6) NOT NULL,
+    last_updated_at timestamp(6),
+    user_id         bigint       NOT NULL
+);
+
+CREATE TABLE mfa_info (
+    id           bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id      bigint       NOT NULL UNIQUE,
+    secret_key   varchar(255) NOT NULL,
+    enabled      boolean      NOT NULL,
+    created_at   timestamp(6) NOT NULL,
+    last_used_at timestamp(6)
+);
+
+CREATE TABLE nftdata (
+    id                 bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    token_id           varchar(255)   NOT NULL,
+    contract_address   varchar(255)   NOT NULL,
+    token_standard     varchar(255)   NOT NULL,
+    owner_address      varchar(255)   NOT NULL,
+    name               varchar(255),
+    description        text,
+    image_url          varchar(255),
+    metadata_url       varchar(255),
+    last_sale_price    numeric(19,18),
+    last_sale_currency varchar(255),
+    created_at         timestamp(6)   NOT NULL,
+    updated_at         timestamp(6)
+);
+
+CREATE TABLE fiat_transaction (
+    id                 bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id            bigint        NOT NULL,
+    wallet_address     varchar(255)  NOT NULL,
+    currency           varchar(255)  NOT NULL,
+    amount             numeric(19,4) NOT NULL,
+    crypto_amount      numeric(19,8) NOT NULL,
+    crypto_currency    varchar(255)  NOT NULL,
+    status             varchar(255)  NOT NULL,
+    provider_reference varchar(255),
+    checkout_url       varchar(255),
+    created_at         timestamp(6)  NOT NULL,
+    updated_at         timestamp(6)
+);
+
+CREATE TABLE dapp_transaction (
+    id               bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    type             varchar(255)   NOT NULL,
+    status           varchar(255)   NOT NULL,
+    transaction_hash varchar(255)   UNIQUE,
+    created_at       timestamp(6)   NOT NULL,
+    amount           varchar(255)   NOT NULL,
+    token            varchar(255)   NOT NULL,
+    from_address     varchar(255)   NOT NULL,
+    to_address       varchar(255)   NOT NULL,
+    user_id          bigint         NOT NULL,
+    wallet_address   varchar(255)   NOT NULL,
+    network          varchar(255)   NOT NULL,
+    dapp_name        varchar(255),
+    contract_address varchar(255),
+    function_name    varchar(255),
+    function_params  text,
+    value            numeric(36,18),
+    gas_price        numeric(38,2),
+    gas_limit        bigint,
+    nonce            bigint,
+    block_number     bigint,
+    block_hash       varchar(255),
+    error_message    varchar(255)
+);
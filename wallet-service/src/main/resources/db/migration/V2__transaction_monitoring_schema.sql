@@ -0,0 +1,63 @@
+-- Columns and tables added for transaction monitoring, retries, analytics rollups and
+-- search. A database that ran intermediate versions under ddl-auto=update may already have
+-- some of them, so every addition is conditional.
+
+ALTER TABLE dapp_transaction
+    ADD COLUMN IF NOT EXISTS transaction_hash_lc      varchar(255) COLLATE "C",
+    ADD COLUMN IF NOT EXISTS wallet_address_lc        varchar(255) COLLATE "C",
+    ADD COLUMN IF NOT EXISTS contract_address_lc      varchar(255) COLLATE "C",
+    ADD COLUMN IF NOT EXISTS input_data               text,
+    ADD COLUMN IF NOT EXISTS max_fee_per_gas          numeric(38,0),
+    ADD COLUMN IF NOT EXISTS max_priority_fee_per_gas numeric(38,0),
+    ADD COLUMN IF NOT EXISTS retry_count              integer,
+    ADD COLUMN IF NOT EXISTS next_attempt_at          timestamp(6),
+    ADD COLUMN IF NOT EXISTS lease_owner              varchar(255),
+    ADD COLUMN IF NOT EXISTS lease_expires_at         timestamp(6),
+    ADD COLUMN IF NOT EXISTS completed_at             timestamp(6),
+    ADD COLUMN IF NOT EXISTS rollup_status            varchar(255);
+
+-- Gas prices are whole wei
+ALTER TABLE dapp_transaction ALTER COLUMN gas_price TYPE numeric(38,0);
+
+CREATE TABLE IF NOT EXISTS transaction_replacement (
+    id                       bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    transaction_id           bigint        NOT NULL,
+    transaction_hash         varchar(255)  NOT NULL UNIQUE,
+    max_fee_per_gas          numeric(38,2),
+    max_priority_fee_per_gas numeric(38,2),
+    replaced_at              timestamp(6)  NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS monitor_node (
+    node_id        varchar(255) PRIMARY KEY,
+    last_heartbeat timestamp(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS transaction_rollup (
+    id                       bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id                  bigint        NOT NULL,
+    network                  varchar(255)  NOT NULL,
+    day                      date          NOT NULL,
+    type                     varchar(255)  NOT NULL,
+    transaction_count        bigint        NOT NULL,
+    confirmed_count          bigint        NOT NULL,
+    failed_count             bigint        NOT NULL,
+    gas_spent                numeric(38,0) NOT NULL,
+    gas_price_sum            numeric(38,0) NOT NULL,
+    confirmation_seconds     bigint        NOT NULL,
+    confirmation_count       bigint        NOT NULL,
+    min_confirmation_seconds bigint,
+    max_confirmation_seconds bigint,
+    CONSTRAINT uk_transaction_rollup_bucket UNIQUE (user_id, network, day, type)
+);
+
+CREATE TABLE IF NOT EXISTS confirmation_latency_sketch (
+    id           bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    network      varchar(255) NOT NULL,
+    dapp_name    varchar(255) NOT NULL,
+    bucket_start timestamp(6) NOT NULL,
+    node_id      varchar(255) NOT NULL,
+    histogram    bytea        NOT NULL,
+    updated_at   timestamp(6) NOT NULL,
+    CONSTRAINT uk_confirmation_latency_sketch_bucket UNIQUE (network, dapp_name, bucket_start, node_id)
+);
@@ -0,0 +1,8 @@
+-- Indexes for the transaction_replacement queries. Built concurrently so existing deployments
+-- keep accepting writes; Flyway runs this migration outside a transaction.
+-- The dapp_transaction indexes are created by V4 on the partitioned table; building them here
+-- first would only have them thrown away with the unpartitioned table.
+
+-- findByTransactionIdIn and the in-flight replacement join
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transaction_replacement_transaction
+    ON transaction_replacement (transaction_id);
@@ -0,0 +1,118 @@
+-- Range-partitions dapp_transaction by month of created_at. The table is rebuilt: rows are
+-- copied into the partitioned table and its query indexes are built on it, so this migration
+-- holds the table for the duration of the copy and the index builds. Run it in a maintenance
+-- window, with the services that write dapp_transaction stopped.
+--
+-- A partitioned table can only enforce uniqueness on keys that include created_at: the
+-- primary key becomes (id, created_at) and transaction_hash is indexed but no longer unique.
+-- Ids come from a plain sequence, as partitioned tables have no identity columns before
+-- PostgreSQL 17.
+
+ALTER TABLE dapp_transaction RENAME TO dapp_transaction_unpartitioned;
+ALTER TABLE dapp_transaction_unpartitioned RENAME CONSTRAINT dapp_transaction_pkey TO dapp_transaction_unpartitioned_pkey;
+
+CREATE SEQUENCE dapp_transaction_seq;
+SELECT setval('dapp_transaction_seq', COALESCE((SELECT MAX(id) FROM dapp_transaction_unpartitioned), 0) + 1, false);
+
+CREATE TABLE dapp_transaction (
+    id                       bigint         NOT NULL DEFAULT nextval('dapp_transaction_seq'),
+    type                     varchar(255)   NOT NULL,
+    status                   varchar(255)   NOT NULL,
+    transaction_hash         varchar(255),
+    created_at               timestamp(6)   NOT NULL,
+    amount                   varchar(255)   NOT NULL,
+    token                    varchar(255)   NOT NULL,
+    from_address             varchar(255)   NOT NULL,
+    to_address               varchar(255)   NOT NULL,
+    user_id                  bigint         NOT NULL,
+    wallet_address           varchar(255)   NOT NULL,
+    network                  varchar(255)   NOT NULL,
+    transaction_hash_lc      varchar(255)   COLLATE "C",
+    wallet_address_lc        varchar(255)   COLLATE "C",
+    contract_address_lc      varchar(255)   COLLATE "C",
+    dapp_name                varchar(255),
+    contract_address         varchar(255),
+    function_name            varchar(255),
+    function_params          text,
+    input_data               text,
+    value                    numeric(36,18),
+    gas_price                numeric(38,0),
+    max_fee_per_gas          numeric(38,0),
+    max_priority_fee_per_gas numeric(38,0),
+    gas_limit                bigint,
+    nonce                    bigint,
+    block_number             bigint,
+    block_hash               varchar(255),
+    error_message            varchar(255),
+    retry_count              integer,
+    next_attempt_at          timestamp(6),
+    lease_owner              varchar(255),
+    lease_expires_at         timestamp(6),
+    completed_at             timestamp(6),
+    rollup_status            varchar(255),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE dapp_transaction_seq OWNED BY dapp_transaction.id;
+
+-- One partition per month from the oldest row up to a few months ahead; TransactionArchiveService
+-- keeps creating them from then on. The default partition only catches rows outside of those.
+DO $$
+DECLARE
+    m timestamp := date_trunc('month', LEAST(
+            COALESCE((SELECT MIN(created_at) FROM dapp_transaction_unpartitioned), now()), now()));
+    last_month timestamp := date_trunc('month', now()) + interval '3 months';
+BEGIN
+    WHILE m <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF dapp_transaction FOR VALUES FROM (%L) TO (%L)',
+                'dapp_transaction_p' || to_char(m, 'YYYYMM'), m, m + interval '1 month');
+        m := m + interval '1 month';
+    END LOOP;
+END $$;
+
+CREATE TABLE dapp_transaction_default PARTITION OF dapp_transaction DEFAULT;
+
+INSERT INTO dapp_transaction (
+        id, type, status, transaction_hash, created_at, amount, token, from_address, to_address,
+        user_id, wallet_address, network, transaction_hash_lc, wallet_address_lc, contract_address_lc,
+        dapp_name, contract_address, function_name, function_params, input_data, value, gas_price,
+        max_fee_per_gas, max_priority_fee_per_gas, gas_limit, nonce, block_number, block_hash,
+        error_message, retry_count, next_attempt_at, lease_owner, lease_expires_at, completed_at,
+        rollup_status)
+SELECT id, type, status, transaction_hash, created_at, amount, token, from_address, to_address,
+        user_id, wallet_address, network,
+        -- Rows written before V2 added these columns are filled here, not left to SearchColumnBackfill
+        COALESCE(transaction_hash_lc, LOWER(transaction_hash)),
+        COALESCE(wallet_address_lc, LOWER(wallet_address)),
+        COALESCE(contract_address_lc, LOWER(contract_address)),
+        dapp_name, contract_address, function_name, function_params, input_data, value, gas_price,
+        max_fee_per_gas, max_priority_fee_per_gas, gas_limit, nonce, block_number, block_hash,
+        error_message, retry_count, next_attempt_at, lease_owner, lease_expires_at, completed_at,
+        rollup_status
+FROM dapp_transaction_unpartitioned;
+
+DROP TABLE dapp_transaction_unpartitioned;
+
+-- Indexes for the DappTransactionRepository queries, defined on the partitioned table and built
+-- on every partition. DappTransactionIndexUsageTest checks that each query is planned on its index.
+CREATE INDEX idx_dapp_transaction_hash ON dapp_transaction (transaction_hash);
+CREATE INDEX idx_dapp_transaction_user_network_created ON dapp_transaction (user_id, network, created_at);
+CREATE INDEX idx_dapp_transaction_user_created ON dapp_transaction (user_id, created_at, id);
+CREATE INDEX idx_dapp_transaction_wallet_created ON dapp_transaction (wallet_address, created_at, id);
+CREATE INDEX idx_dapp_transaction_user_hash_lc ON dapp_transaction (user_id, transaction_hash_lc);
+CREATE INDEX idx_dapp_transaction_user_wallet_lc ON dapp_transaction (user_id, wallet_address_lc);
+CREATE INDEX idx_dapp_transaction_user_contract_lc ON dapp_transaction (user_id, contract_address_lc);
+CREATE INDEX idx_dapp_transaction_in_flight ON dapp_transaction (status, id)
+    WHERE status IN ('PENDING', 'SUBMITTED');
+CREATE INDEX idx_dapp_transaction_pending_block ON dapp_transaction (network, block_number)
+    WHERE status = 'PENDING' AND block_number IS NOT NULL;
+CREATE INDEX idx_dapp_transaction_lease_owner ON dapp_transaction (lease_owner)
+    WHERE lease_owner IS NOT NULL;
+CREATE INDEX idx_dapp_transaction_failed_retry ON dapp_transaction (retry_count)
+    WHERE status = 'FAILED';
+CREATE INDEX idx_dapp_transaction_uncounted ON dapp_transaction (id)
+    WHERE rollup_status IS NULL;
+CREATE INDEX idx_dapp_transaction_miscounted ON dapp_transaction (id)
+    WHERE rollup_status <> status;
+CREATE INDEX idx_dapp_transaction_status_created ON dapp_transaction (status, created_at);
+CREATE INDEX idx_dapp_transaction_user_dapp ON dapp_transaction (user_id, dapp_name);
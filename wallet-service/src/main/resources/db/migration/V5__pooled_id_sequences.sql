@@ -0,0 +1,20 @@
+-- Moves ids from identity columns to sequences that hand out blocks of 50, so Hibernate can
+-- assign ids without a round trip per insert and batch the inserts. Each sequence value is the
+-- low end of a block (the pooled-lo optimizer); the column default still takes single values
+-- for native inserts, which never collide with a block handed to Hibernate.
+
+ALTER SEQUENCE dapp_transaction_seq INCREMENT BY 50;
+
+DO $$
+DECLARE
+    t text;
+BEGIN
+    FOREACH t IN ARRAY ARRAY['wallets', 'encrypted_wallet_key', 'social_recovery_share', 'mfa_info',
+            'nftdata', 'fiat_transaction', 'transaction_replacement', 'transaction_rollup',
+            'confirmation_latency_sketch'] LOOP
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY', t);
+        EXECUTE format('CREATE SEQUENCE %I INCREMENT BY 50 OWNED BY %I.id', t || '_seq', t);
+        EXECUTE format('SELECT setval(%L, COALESCE((SELECT MAX(id) FROM %I), 0) + 1, false)', t || '_seq', t);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(%L)', t, t || '_seq');
+    END LOOP;
+END $$;
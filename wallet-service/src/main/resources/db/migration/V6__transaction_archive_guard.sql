@@ -0,0 +1,15 @@
+-- Change tracking for TransactionArchiveService. While a month is copied into its archive
+-- partition without locking it, a row trigger on the hot partition records any write here; the
+-- swap only goes ahead when nothing was recorded for the month.
+
+CREATE TABLE transaction_archive_change (
+    partition_name varchar(63) PRIMARY KEY
+);
+
+CREATE FUNCTION dapp_transaction_archive_change() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    INSERT INTO transaction_archive_change (partition_name) VALUES (TG_TABLE_NAME)
+    ON CONFLICT DO NOTHING;
+    RETURN NULL;
+END $$;
@@ -0,0 +1,157 @@
+package com.web3platform.wallet_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes between two independent PostgreSQL instances standing in for a primary and a
+ * replica. Each holds a one-row table naming itself, so a query shows where it was sent.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class ReplicaRoutingDataSourceTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> PRIMARY = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Container
+    private static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final long MAX_LAG_MS = 5000;
+
+    private HikariDataSource primary;
+    private ReplicaRoutingDataSource routing;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    // Lag reported by the replica in place of the real measurement, or null to measure it
+    private volatile Long lagOverride;
+    private volatile boolean replicaDown;
+    private volatile boolean primaryDown;
+
+    @BeforeAll
+    static void nameInstances() {
+        for (PostgreSQLContainer<?> instance : List.of(PRIMARY, REPLICA)) {
+            try (HikariDataSource dataSource = dataSource(instance)) {
+                JdbcTemplate template = new JdbcTemplate(dataSource);
+                template.execute("CREATE TABLE node (name varchar(16))");
+                template.update("INSERT INTO node VALUES (?)", instance == PRIMARY ? "primary" : "replica");
+            }
+        }
+    }
+
+    private void route() {
+        primary = dataSource(PRIMARY);
+        routing = new ReplicaRoutingDataSource(
+                primary, Map.of("replica-1", dataSource(REPLICA)), MAX_LAG_MS) {
+            @Override
+            protected String primaryWalPosition() throws SQLException {
+                if (primaryDown) {
+                    throw new SQLException("Connection refused");
+                }
+                return super.primaryWalPosition();
+            }
+
+            @Override
+            protected long replicationLagMillis(DataSource replica, String primaryLsn) throws SQLException {
+                if (replicaDown) {
+                    throw new SQLException("Connection refused");
+                }
+                return lagOverride != null ? lagOverride : super.replicationLagMillis(replica, primaryLsn);
+            }
+        };
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routing);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void close() {
+        routing.closeReplicas();
+        primary.close();
+    }
+
+    @Test
+    void testReadOnlyTransactionsGoToReplica() {
+        route();
+        routing.checkReplicationLag();
+
+        assertEquals(List.of("replica-1"), routing.getUsableReplicas());
+        assertEquals("replica", readOnly.execute(status -> node()));
+        assertEquals("primary", readWrite.execute(status -> node()));
+        // Outside of a transaction nothing is known to be read-only
+        assertEquals("primary", node());
+    }
+
+    @Test
+    void testReadsStayOnPrimaryUntilReplicaIsChecked() {
+        route();
+
+        assertEquals("primary", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimary() {
+        route();
+        lagOverride = MAX_LAG_MS + 1;
+        routing.checkReplicationLag();
+
+        assertTrue(routing.getUsableReplicas().isEmpty());
+        assertEquals("primary", readOnly.execute(status -> node()));
+
+        lagOverride = MAX_LAG_MS;
+        routing.checkReplicationLag();
+
+        assertEquals("replica", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    void testUnreachableReplicaFallsBackToPrimary() {
+        route();
+        routing.checkReplicationLag();
+        replicaDown = true;
+        routing.checkReplicationLag();
+
+        assertEquals("primary", readOnly.execute(status -> node()));
+    }
+
+    @Test
+    void testReplicasAreNotUsedWhilePrimaryPositionIsUnknown() {
+        route();
+        routing.checkReplicationLag();
+        primaryDown = true;
+        routing.checkReplicationLag();
+
+        assertTrue(routing.getUsableReplicas().isEmpty());
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("SELECT name FROM node", String.class);
+    }
+
+    private static HikariDataSource dataSource(PostgreSQLContainer<?> instance) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(instance.getJdbcUrl());
+        dataSource.setUsername(instance.getUsername());
+        dataSource.setPassword(instance.getPassword());
+        return dataSource;
+    }
+}
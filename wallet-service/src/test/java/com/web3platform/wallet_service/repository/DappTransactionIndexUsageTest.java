@@ -0,0 +1,343 @@
+package com.web3platform.wallet_service.repository;
+
+import jakarta.persistence.EntityManager;
+import org.flywaydb.core.Flyway;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the migrations against a real PostgreSQL, loads a realistic spread of transactions and
+ * checks that the plan of each repository query uses the index created for it. JPQL queries are
+ * run through the repository and the statements Hibernate sends are explained with their bound
+ * values, as in a custom plan; native queries are explained with their parameters inlined.
+ * dapp_transaction is partitioned, so plans name the partitions' copies of an index.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class DappTransactionIndexUsageTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    // 50k transactions over the current month and the next. User 0 is a large account holding half of them, the rest are spread
+    // over 500 users and 1000 wallets. 0.1% pending, 0.1% submitted, 0.2% failed, the rest
+    // confirmed; a few terminal rows are not counted or miscounted in the rollups.
+    private static final String SEED_TRANSACTIONS =
+            "INSERT INTO dapp_transaction (type, status, transaction_hash, created_at, amount, token, " +
+            "from_address, to_address, user_id, wallet_address, network, transaction_hash_lc, " +
+            "wallet_address_lc, contract_address_lc, dapp_name, contract_address, gas_price, gas_limit, " +
+            "block_number, retry_count, lease_owner, lease_expires_at, rollup_status) " +
+            "SELECT 'SWAP', s.status, '0x' || md5(s.i::text), date_trunc('month', LOCALTIMESTAMP) + s.i * interval '1 minute', " +
+            "'1', 'ETH', '0xfrom', '0xto', CASE WHEN s.i % 2 = 0 THEN 0 ELSE s.i % 500 END, '0x' || md5((s.i % 1000)::text), " +
+            "(ARRAY['ethereum', 'polygon', 'arbitrum'])[s.i % 3 + 1], '0x' || md5(s.i::text), " +
+            "'0x' || md5((s.i % 1000)::text), '0x' || md5((s.i % 20)::text), 'dapp-' || (s.i % 20), " +
+            "'0x' || md5((s.i % 20)::text), 1000000000, 21000, " +
+            "CASE WHEN s.status = 'PENDING' AND s.i % 2000 = 0 THEN s.i END, " +
+            "CASE WHEN s.status = 'FAILED' THEN s.i % 5 END, " +
+            "CASE WHEN s.status = 'PENDING' THEN 'node-' || (s.i % 3) END, " +
+            "CASE WHEN s.status = 'PENDING' THEN timestamp '2024-06-01' END, " +
+            "CASE WHEN s.status IN ('PENDING', 'SUBMITTED') OR s.i % 1000 = 3 THEN NULL " +
+            "WHEN s.i % 1000 = 5 THEN 'PENDING' ELSE s.status END " +
+            "FROM (SELECT i, CASE WHEN i % 1000 = 0 THEN 'PENDING' WHEN i % 1000 = 1 THEN 'SUBMITTED' " +
+            "WHEN i % 500 = 2 THEN 'FAILED' ELSE 'CONFIRMED' END AS status " +
+            "FROM generate_series(1, 50000) AS i) s";
+
+    private static final String SEED_REPLACEMENTS =
+            "INSERT INTO transaction_replacement (transaction_id, transaction_hash, replaced_at) " +
+            "SELECT i, '0x' || md5('replaced' || i), timestamp '2024-06-01' FROM generate_series(1, 50000, 25) AS i";
+
+    // Plans of the statements the repository sent, keyed by their SQL in the order they ran
+    private static final Map<String, String> repositoryPlans = new LinkedHashMap<>();
+
+    private static DappTransactionRepository repository;
+
+    @BeforeAll
+    static void migrateAndSeed() throws SQLException {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .load()
+                .migrate();
+
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute(SEED_TRANSACTIONS);
+            statement.execute(SEED_REPLACEMENTS);
+            statement.execute("VACUUM ANALYZE dapp_transaction");
+            statement.execute("VACUUM ANALYZE transaction_replacement");
+        }
+
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(explaining(new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())));
+        factory.setPackagesToScan("com.web3platform.wallet_service.model");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        // The naming Spring Boot configures, so columns map as they do in the service
+        factory.setJpaPropertyMap(Map.of(
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                "hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName()));
+        factory.afterPropertiesSet();
+        EntityManager entityManager = factory.getObject().createEntityManager();
+        repository = new JpaRepositoryFactory(entityManager).getRepository(DappTransactionRepository.class);
+    }
+
+    @Test
+    void testInFlightQueriesUsePartialIndex() throws SQLException {
+        // findByStatusIn(IN_FLIGHT)
+        assertUsesIndex("SELECT id, transaction_hash, network, user_id, status, block_number, block_hash, created_at " +
+                        "FROM dapp_transaction WHERE status IN ('PENDING', 'SUBMITTED')",
+                "idx_dapp_transaction_in_flight");
+        // claimPendingLeases
+        assertUsesIndex("UPDATE dapp_transaction SET lease_owner = 'node-9', lease_expires_at = timestamp '2024-06-02' " +
+                        "WHERE id IN (SELECT id FROM dapp_transaction WHERE status = 'PENDING' AND " +
+                        "(lease_owner IS NULL OR lease_expires_at < timestamp '2024-06-02') " +
+                        "ORDER BY id LIMIT 100 FOR UPDATE SKIP LOCKED) RETURNING id, network",
+                "idx_dapp_transaction_in_flight");
+        // confirmMinedUpToBlock
+        assertUsesIndex("UPDATE dapp_transaction SET status = 'CONFIRMED' WHERE id IN (1, 2, 3) AND " +
+                        "network = 'ethereum' AND status = 'PENDING' AND block_number IS NOT NULL AND " +
+                        "block_number <= 30000 RETURNING id",
+                "dapp_transaction_pkey", "idx_dapp_transaction_pending_block", "idx_dapp_transaction_in_flight");
+        // renewLeases
+        assertUsesIndex("UPDATE dapp_transaction SET lease_expires_at = timestamp '2024-06-02' " +
+                        "WHERE lease_owner = 'node-1' AND status = 'PENDING' RETURNING id, network",
+                "idx_dapp_transaction_lease_owner", "idx_dapp_transaction_in_flight");
+    }
+
+    @Test
+    void testRetryAndRollupSweepsUsePartialIndexes() throws SQLException {
+        // findRetryCandidates
+        assertUsesIndex("SELECT id, retry_count, next_attempt_at FROM dapp_transaction " +
+                        "WHERE status = 'FAILED' AND (retry_count IS NULL OR retry_count < 3)",
+                "idx_dapp_transaction_failed_retry");
+        // findUncountedIds
+        assertUsesIndex("SELECT id FROM dapp_transaction WHERE rollup_status IS NULL AND " +
+                        "status IN ('CONFIRMED', 'FAILED', 'CANCELLED', 'REVERTED') LIMIT 500",
+                "idx_dapp_transaction_uncounted");
+        // findMiscountedIds
+        assertUsesIndex("SELECT id FROM dapp_transaction WHERE rollup_status IS NOT NULL AND " +
+                        "rollup_status <> status LIMIT 500",
+                "idx_dapp_transaction_miscounted");
+    }
+
+    @Test
+    void testUserListingsUseCompositeIndexes() throws SQLException {
+        // findByUserIdAndNetworkOrderByTimestampDesc
+        assertUsesIndex("SELECT * FROM dapp_transaction WHERE user_id = 7 AND network = 'polygon' " +
+                        "ORDER BY created_at DESC LIMIT 20",
+                "idx_dapp_transaction_user_network_created");
+        assertPlanUsesIndex(repositoryPlan(() -> repository.findByUserIdAfter(7L, intoMonth(20), 25000L, PageRequest.of(0, 20))),
+                "idx_dapp_transaction_user_created");
+        assertPlanUsesIndex(repositoryPlan(() -> repository.findByWalletAddressAfter(
+                        md5("7"), intoMonth(20), 25000L, PageRequest.of(0, 20))),
+                "idx_dapp_transaction_wallet_created");
+        // findByStatus
+        assertUsesIndex("SELECT * FROM dapp_transaction WHERE status = 'CONFIRMED' ORDER BY created_at DESC LIMIT 20",
+                "idx_dapp_transaction_status_created");
+        // findUserNetworks, findUserDapps
+        assertUsesIndex("SELECT DISTINCT network FROM dapp_transaction WHERE user_id = 7",
+                "idx_dapp_transaction_user_network_created", "idx_dapp_transaction_user_created");
+        assertUsesIndex("SELECT DISTINCT dapp_name FROM dapp_transaction WHERE user_id = 7",
+                "idx_dapp_transaction_user_dapp");
+    }
+
+    @Test
+    void testSearchQueriesUseUserIndexes() throws SQLException {
+        Pageable newestFirst = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "timestamp"));
+        // User and date filters, the unused filters bound to null
+        assertPlanUsesIndex(repositoryPlan(() -> repository.searchTransactions(0L, null, null, null, null,
+                        intoMonth(10), intoMonth(20), null, null, null, newestFirst)),
+                "idx_dapp_transaction_user_created", "idx_dapp_transaction_user_network_created");
+        // Each prefix range is served by its own index and the three are combined with a bitmap OR
+        assertPlanUsesEveryIndex(repositoryPlan(() -> repository.searchTransactionsByQuery(
+                        0L, "0xab", "0xac", newestFirst)),
+                "idx_dapp_transaction_user_hash_lc", "idx_dapp_transaction_user_wallet_lc",
+                "idx_dapp_transaction_user_contract_lc");
+        // findFirstByTransactionHashOrderByTimestampDesc
+        assertUsesIndex("SELECT * FROM dapp_transaction WHERE transaction_hash = '0x' || md5('42') " +
+                        "ORDER BY created_at DESC LIMIT 1",
+                "idx_dapp_transaction_hash");
+    }
+
+    @Test
+    void testReplacementLookupsUseTransactionIndex() throws SQLException {
+        // findByTransactionIdIn
+        assertUsesIndex("SELECT transaction_id, transaction_hash FROM transaction_replacement " +
+                        "WHERE transaction_id IN (26, 51, 76)",
+                "idx_transaction_replacement_transaction");
+    }
+
+    private static void assertUsesIndex(String sql, String... expectedIndexes) throws SQLException {
+        assertPlanUsesIndex(explain(sql), expectedIndexes);
+    }
+
+    private static void assertPlanUsesIndex(String plan, String... expectedIndexes) throws SQLException {
+        List<String> names = new ArrayList<>();
+        for (String index : expectedIndexes) {
+            names.addAll(withPartitionIndexes(index));
+        }
+        assertTrue(names.stream().anyMatch(plan::contains),
+                () -> "Expected one of " + Arrays.toString(expectedIndexes) + " in plan:\n" + plan);
+    }
+
+    private static void assertPlanUsesEveryIndex(String plan, String... expectedIndexes) throws SQLException {
+        for (String index : expectedIndexes) {
+            assertTrue(withPartitionIndexes(index).stream().anyMatch(plan::contains),
+                    () -> "Expected " + index + " in plan:\n" + plan);
+        }
+    }
+
+    private static List<String> withPartitionIndexes(String index) throws SQLException {
+        List<String> names = new ArrayList<>();
+        names.add(index);
+        names.addAll(partitionIndexes(index));
+        return names;
+    }
+
+    /**
+     * Runs a repository call and returns the plan of the page query it sent, leaving out the
+     * count query of a Page.
+     */
+    private static String repositoryPlan(Runnable call) {
+        repositoryPlans.clear();
+        call.run();
+        return repositoryPlans.entrySet().stream()
+                .filter(entry -> !entry.getKey().toLowerCase().startsWith("select count("))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No query was sent"));
+    }
+
+    // Explains every prepared query before running it, with the values Hibernate bound
+    private static DataSource explaining(DataSource dataSource) {
+        return proxy(DataSource.class, dataSource, (method, args, result) ->
+                result instanceof Connection connection ? explaining(connection) : result);
+    }
+
+    private static Connection explaining(Connection connection) {
+        return proxy(Connection.class, connection, (method, args, result) ->
+                method.getName().equals("prepareStatement")
+                        ? explaining(connection, (String) args[0], (PreparedStatement) result)
+                        : result);
+    }
+
+    private static PreparedStatement explaining(Connection connection, String sql, PreparedStatement statement) {
+        Map<Integer, Object[]> binds = new TreeMap<>();
+        Map<Integer, Method> setters = new TreeMap<>();
+        return (PreparedStatement) Proxy.newProxyInstance(DappTransactionIndexUsageTest.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    if (method.getName().startsWith("set") && args != null && args.length >= 2
+                            && args[0] instanceof Integer index) {
+                        setters.put(index, method);
+                        binds.put(index, args);
+                    } else if (method.getName().equals("executeQuery") && args == null) {
+                        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                            for (Map.Entry<Integer, Method> setter : setters.entrySet()) {
+                                setter.getValue().invoke(explain, binds.get(setter.getKey()));
+                            }
+                            repositoryPlans.put(sql, plan(explain.executeQuery()));
+                        }
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private interface ResultHandler {
+        Object apply(Method method, Object[] args, Object result) throws Exception;
+    }
+
+    private static <T> T proxy(Class<T> type, T target, ResultHandler handler) {
+        return type.cast(Proxy.newProxyInstance(DappTransactionIndexUsageTest.class.getClassLoader(),
+                new Class<?>[]{type}, (proxy, method, args) -> handler.apply(method, args, invoke(target, method, args))));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static List<String> partitionIndexes(String index) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (Connection connection = connect();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                     "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ?")) {
+            statement.setString(1, index);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    names.add(rows.getString(1));
+                }
+            }
+        }
+        return names;
+    }
+
+    private static String explain(String sql) throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            return plan(statement.executeQuery("EXPLAIN " + sql));
+        }
+    }
+
+    private static String plan(ResultSet rows) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (rows) {
+            while (rows.next()) {
+                plan.append(rows.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    // Same offsets from the start of the month as the seeded created_at values
+    private static LocalDateTime intoMonth(int days) {
+        return LocalDate.now().withDayOfMonth(1).plusDays(days).atStartOfDay();
+    }
+
+    private static String md5(String value) {
+        try {
+            return "0x" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(value.getBytes()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+    }
+}
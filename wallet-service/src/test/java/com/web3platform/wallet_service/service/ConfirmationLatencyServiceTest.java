@@ -0,0 +1,121 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.model.ConfirmationLatencySketch;
+import com.web3platform.wallet_service.repository.ConfirmationLatencySketchRepository;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ConfirmationLatencyServiceTest {
+
+    @Mock
+    private ConfirmationLatencySketchRepository sketchRepository;
+
+    @Mock
+    private TransactionLeaseManager leaseManager;
+
+    @InjectMocks
+    private ConfirmationLatencyService latencyService;
+
+    private final LocalDateTime hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(latencyService, "significantDigits", 2);
+        lenient().when(leaseManager.getNodeId()).thenReturn("node-a");
+    }
+
+    @Test
+    void testPercentilesMergeOtherNodesWithLocalHistograms() throws Exception {
+        for (int i = 1; i <= 100; i++) {
+            latencyService.record("ethereum", "uniswap", i * 1000L);
+        }
+        Histogram remote = new Histogram(2);
+        remote.recordValueWithCount(500_000, 100);
+        when(sketchRepository.findByNetworkAndBucketStartBetween(eq("ethereum"), eq(hour.minusHours(1)), any()))
+                .thenReturn(Collections.singletonList(sketch("node-b", remote)));
+
+        ConfirmationLatencyService.LatencyPercentiles percentiles = latencyService.getPercentiles(
+                "ethereum", null, hour.minusMinutes(30), hour.plusMinutes(59));
+
+        assertEquals(200, percentiles.getCount());
+        assertEquals(100_000, percentiles.getP50(), 1000);
+        assertEquals(500_000, percentiles.getP95(), 5000);
+        assertEquals(500_000, percentiles.getMax(), 5000);
+    }
+
+    @Test
+    void testOwnPersistedCopyIsNotCountedTwice() throws Exception {
+        latencyService.record("ethereum", null, 2000);
+        latencyService.flush();
+
+        ArgumentCaptor<byte[]> encoded = ArgumentCaptor.forClass(byte[].class);
+        verify(sketchRepository).upsert(eq("ethereum"), eq(ConfirmationLatencyService.NO_DAPP), eq(hour),
+                eq("node-a"), encoded.capture(), any());
+        assertEquals(1, ConfirmationLatencyService.decode(encoded.getValue()).getTotalCount());
+
+        when(sketchRepository.findByNetworkAndDappNameAndBucketStartBetween(eq("ethereum"), eq(""), eq(hour), any()))
+                .thenReturn(Arrays.asList(
+                        sketch("node-a", ConfirmationLatencyService.decode(encoded.getValue()))));
+
+        assertEquals(1, latencyService.getPercentiles("ethereum", "", hour, hour.plusHours(1)).getCount());
+
+        // Nothing new to persist
+        latencyService.flush();
+        verify(sketchRepository, times(1)).upsert(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testFirstFlushAfterRestartKeepsStoredSamples() throws Exception {
+        Histogram beforeRestart = new Histogram(2);
+        beforeRestart.recordValueWithCount(3000, 5);
+        when(sketchRepository.findByNetworkAndDappNameAndBucketStartAndNodeId("ethereum", "", hour, "node-a"))
+                .thenReturn(Optional.of(sketch("node-a", beforeRestart)));
+        when(sketchRepository.findByNetworkAndDappNameAndBucketStartBetween(eq("ethereum"), eq(""), eq(hour), any()))
+                .thenReturn(Collections.singletonList(sketch("node-a", beforeRestart)));
+
+        latencyService.record("ethereum", null, 2000);
+        // Not flushed yet: the stored copy still counts alongside the new sample
+        assertEquals(6, latencyService.getPercentiles("ethereum", "", hour, hour.plusHours(1)).getCount());
+
+        latencyService.flush();
+        latencyService.record("ethereum", null, 2000);
+        latencyService.flush();
+
+        ArgumentCaptor<byte[]> encoded = ArgumentCaptor.forClass(byte[].class);
+        verify(sketchRepository, times(2)).upsert(eq("ethereum"), eq(ConfirmationLatencyService.NO_DAPP), eq(hour),
+                eq("node-a"), encoded.capture(), any());
+        assertEquals(6, ConfirmationLatencyService.decode(encoded.getAllValues().get(0)).getTotalCount());
+        assertEquals(7, ConfirmationLatencyService.decode(encoded.getAllValues().get(1)).getTotalCount());
+        verify(sketchRepository, times(1)).findByNetworkAndDappNameAndBucketStartAndNodeId(any(), any(), any(), any());
+        assertEquals(7, latencyService.getPercentiles("ethereum", "", hour, hour.plusHours(1)).getCount());
+    }
+
+    private ConfirmationLatencySketch sketch(String nodeId, Histogram histogram) {
+        ConfirmationLatencySketch sketch = new ConfirmationLatencySketch();
+        sketch.setNetwork("ethereum");
+        sketch.setDappName(ConfirmationLatencyService.NO_DAPP);
+        sketch.setBucketStart(hour);
+        sketch.setNodeId(nodeId);
+        sketch.setHistogram(ConfirmationLatencyService.encode(histogram));
+        return sketch;
+    }
+}
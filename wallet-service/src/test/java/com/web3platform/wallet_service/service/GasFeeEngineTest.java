@@ -0,0 +1,54 @@
+package com.web3platform.wallet_service.service;
+
+import org.junit.jupiter.api.Test;
+import org.web3j.protocol.core.methods.response.EthFeeHistory;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GasFeeEngineTest {
+
+    private static final List<Double> PERCENTILES = Arrays.asList(10.0, 50.0, 90.0);
+
+    @Test
+    void testBumpClearsReplacementThreshold() {
+        assertEquals(BigInteger.valueOf(110), GasFeeEngine.bump(BigInteger.valueOf(100), 10));
+        // 101 * 1.1 = 111.1, rounding down would be rejected by the node
+        assertEquals(BigInteger.valueOf(112), GasFeeEngine.bump(BigInteger.valueOf(101), 10));
+        assertEquals(BigInteger.ZERO, GasFeeEngine.bump(null, 10));
+    }
+
+    @Test
+    void testSnapshotUsesNextBaseFeeAndMedianTips() {
+        EthFeeHistory.FeeHistory history = new EthFeeHistory.FeeHistory(
+                "0x10",
+                Arrays.asList(
+                        Arrays.asList("0x1", "0x5", "0xa"),
+                        Arrays.asList("0x2", "0x7", "0x14"),
+                        Arrays.asList("0x3", "0x6", "0x1e")),
+                Arrays.asList("0x64", "0x6e", "0x78", "0x82"),
+                Arrays.asList(0.5, 0.6, 0.7));
+
+        GasFeeEngine.FeeSnapshot snapshot = GasFeeEngine.fromHistory(history, PERCENTILES, 0);
+
+        assertNotNull(snapshot);
+        assertEquals(BigInteger.valueOf(130), snapshot.getNextBaseFee());
+        assertEquals(BigInteger.valueOf(2), snapshot.priorityFee(10.0));
+        assertEquals(BigInteger.valueOf(6), snapshot.priorityFee(50.0));
+        assertEquals(BigInteger.valueOf(20), snapshot.priorityFee(90.0));
+        // Unconfigured percentiles resolve to the closest configured one
+        assertEquals(BigInteger.valueOf(20), snapshot.priorityFee(99.0));
+    }
+
+    @Test
+    void testSnapshotIsNullWithoutBaseFee() {
+        EthFeeHistory.FeeHistory history = new EthFeeHistory.FeeHistory(
+                "0x10", Collections.emptyList(), Arrays.asList("0x0", "0x0"), Collections.emptyList());
+
+        assertNull(GasFeeEngine.fromHistory(history, PERCENTILES, 0));
+    }
+}
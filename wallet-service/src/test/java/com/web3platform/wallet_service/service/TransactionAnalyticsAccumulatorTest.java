@@ -0,0 +1,73 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.model.DappTransaction;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionAnalyticsAccumulatorTest {
+
+    @Test
+    void testMergedPartsMatchSinglePass() {
+        TransactionAnalyticsAccumulator whole = new TransactionAnalyticsAccumulator();
+        TransactionAnalyticsAccumulator left = new TransactionAnalyticsAccumulator();
+        TransactionAnalyticsAccumulator right = new TransactionAnalyticsAccumulator();
+        for (int i = 0; i < 100; i++) {
+            DappTransaction.TransactionStatus status = i % 4 == 0
+                    ? DappTransaction.TransactionStatus.FAILED
+                    : DappTransaction.TransactionStatus.CONFIRMED;
+            DappTransaction.TransactionType type = DappTransaction.TransactionType.values()[i % 3];
+            long gasPrice = 1_000_000_000L * (i + 1);
+            whole.add(type, status, gasPrice, 21000, i);
+            (i < 37 ? left : right).add(type, status, gasPrice, 21000, i);
+        }
+
+        assertEquals(whole.toAnalytics(), right.merge(left).toAnalytics());
+    }
+
+    @Test
+    void testFeesBeyondLongRangeStayExact() {
+        TransactionAnalyticsAccumulator accumulator = new TransactionAnalyticsAccumulator();
+        // 10,000 gwei * 30M gas = 300 ETH per transaction, far past Long.MAX_VALUE wei in total
+        for (int i = 0; i < 1000; i++) {
+            accumulator.add(DappTransaction.TransactionType.SWAP, DappTransaction.TransactionStatus.CONFIRMED,
+                    10_000_000_000_000L, 30_000_000L, -1);
+        }
+
+        TransactionAnalyticsService.TransactionAnalytics analytics = accumulator.toAnalytics();
+        assertEquals(0, new BigDecimal("300000").compareTo(analytics.getTotalNetworkFees()));
+        assertEquals(0, new BigDecimal("300").compareTo(analytics.getAverageNetworkFee()));
+        assertEquals(0, analytics.getMaxConfirmationTime());
+        assertEquals(1000L, analytics.getTransactionTypeDistribution().get(DappTransaction.TransactionType.SWAP));
+    }
+
+    @Test
+    void testRevertedTransactionsAreNotCountedAsFailed() {
+        TransactionAnalyticsAccumulator accumulator = new TransactionAnalyticsAccumulator();
+        accumulator.add(DappTransaction.TransactionType.SWAP, DappTransaction.TransactionStatus.FAILED, -1, -1, -1);
+        accumulator.add(DappTransaction.TransactionType.SWAP, DappTransaction.TransactionStatus.REVERTED, -1, -1, -1);
+        accumulator.add(DappTransaction.TransactionType.SWAP, DappTransaction.TransactionStatus.CONFIRMED, -1, -1, -1);
+
+        TransactionAnalyticsService.TransactionAnalytics analytics = accumulator.toAnalytics();
+        assertEquals(3, analytics.getTotalTransactions());
+        assertEquals(1, analytics.getSuccessfulTransactions());
+        assertEquals(1, analytics.getFailedTransactions());
+    }
+
+    @Test
+    void testUnknownGasIsSkipped() {
+        TransactionAnalyticsAccumulator accumulator = new TransactionAnalyticsAccumulator();
+        accumulator.add(DappTransaction.TransactionType.TRANSFER, DappTransaction.TransactionStatus.PENDING, -1, -1, -1);
+        accumulator.add(DappTransaction.TransactionType.TRANSFER, DappTransaction.TransactionStatus.PENDING, 2_000_000_000L, -1, -1);
+
+        TransactionAnalyticsService.TransactionAnalytics analytics = accumulator.toAnalytics();
+        assertEquals(2, analytics.getTotalTransactions());
+        assertEquals(0, BigDecimal.ZERO.compareTo(analytics.getTotalGasSpent()));
+        // Averaged over every transaction, priced or not
+        assertEquals(0, new BigDecimal("1000000000").compareTo(analytics.getAverageGasPrice()));
+        assertEquals(-1, TransactionAnalyticsAccumulator.toWei(null));
+        assertEquals(5, TransactionAnalyticsAccumulator.toWei(new BigDecimal("5.00")));
+    }
+}
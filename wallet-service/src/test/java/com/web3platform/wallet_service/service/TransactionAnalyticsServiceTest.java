@@ -0,0 +1,160 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.dto.TransactionAnalyticsRow;
+import com.web3platform.wallet_service.model.DappTransaction;
+import com.web3platform.wallet_service.model.TransactionRollup;
+import com.web3platform.wallet_service.repository.DappTransactionRepository;
+import com.web3platform.wallet_service.repository.TransactionRollupRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionAnalyticsServiceTest {
+
+    @Mock
+    private DappTransactionRepository dappTransactionRepository;
+
+    @Mock
+    private TransactionRollupRepository rollupRepository;
+
+    @InjectMocks
+    private TransactionAnalyticsService analyticsService;
+
+    @Test
+    void testWholeDaysComeFromRollupsAndEdgesFromTransactions() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 12, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 10, 6, 0);
+
+        TransactionRollup rollup = rollup(LocalDate.of(2024, 3, 2), DappTransaction.TransactionType.SWAP, 10, 8, 2);
+        rollup.setConfirmationSeconds(800);
+        rollup.setConfirmationCount(8);
+        rollup.setMinConfirmationSeconds(30L);
+        rollup.setMaxConfirmationSeconds(300L);
+        when(rollupRepository.findByUserIdAndNetworkAndDayBetween(
+                1L, "ethereum", LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 9)))
+                .thenReturn(Collections.singletonList(rollup));
+
+        // One confirmed transfer on the partial first day, confirmed after 20 seconds
+        when(dappTransactionRepository.aggregateUnrolledInWindow(1L, "ethereum", start, end,
+                LocalDateTime.of(2024, 3, 2, 0, 0), LocalDateTime.of(2024, 3, 10, 0, 0)))
+                .thenReturn(Collections.singletonList(aggregate(
+                        DappTransaction.TransactionType.TRANSFER, DappTransaction.TransactionStatus.CONFIRMED, 1, 20L)));
+
+        TransactionAnalyticsService.TransactionAnalytics analytics =
+                analyticsService.getAnalytics(1L, "ethereum", start, end);
+
+        assertEquals(11, analytics.getTotalTransactions());
+        assertEquals(9, analytics.getSuccessfulTransactions());
+        assertEquals(2, analytics.getFailedTransactions());
+        assertEquals(20, analytics.getMinConfirmationTime());
+        assertEquals(300, analytics.getMaxConfirmationTime());
+        assertEquals(820.0 / 9, analytics.getAverageConfirmationTime(), 1e-9);
+        assertEquals(10L, analytics.getTransactionTypeDistribution().get(DappTransaction.TransactionType.SWAP));
+        assertEquals(1L, analytics.getTransactionTypeDistribution().get(DappTransaction.TransactionType.TRANSFER));
+        // 10 rollup txs at 21000 gas * 1 gwei plus the edge tx
+        assertEquals(0, new BigDecimal("0.000231").compareTo(analytics.getTotalNetworkFees()));
+    }
+
+    @Test
+    void testWindowWithinOneDaySkipsRollups() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 8, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 3, 1, 18, 0);
+        when(dappTransactionRepository.aggregateUnrolledInWindow(
+                eq(1L), eq("ethereum"), eq(start), eq(end), eq(start), eq(start)))
+                .thenReturn(Arrays.asList(
+                        aggregate(DappTransaction.TransactionType.SWAP, DappTransaction.TransactionStatus.PENDING, 1, null),
+                        aggregate(DappTransaction.TransactionType.SWAP, DappTransaction.TransactionStatus.FAILED, 1, null)));
+
+        TransactionAnalyticsService.TransactionAnalytics analytics =
+                analyticsService.getAnalytics(1L, "ethereum", start, end);
+
+        verify(rollupRepository, never()).findByUserIdAndNetworkAndDayBetween(any(), any(), any(), any());
+        assertEquals(2, analytics.getTotalTransactions());
+        assertEquals(1, analytics.getFailedTransactions());
+        assertEquals(0, BigDecimal.ZERO.compareTo(analytics.getSuccessRate()));
+    }
+
+    @Test
+    void testFullRangeHistoryAnalyticsCoverEveryRowNotJustThePage() {
+        DappTransaction onPage = new DappTransaction();
+        onPage.setType(DappTransaction.TransactionType.SWAP);
+        onPage.setStatus(DappTransaction.TransactionStatus.CONFIRMED);
+        when(dappTransactionRepository.findByUserIdAndNetworkOrderByTimestampDesc(eq(1L), eq("ethereum"), any()))
+                .thenReturn(new PageImpl<>(Collections.singletonList(onPage), PageRequest.of(0, 1), 3));
+        LocalDateTime created = LocalDateTime.of(2024, 3, 1, 9, 0);
+        when(dappTransactionRepository.streamAnalyticsRows(1L, "ethereum")).thenReturn(Stream.of(
+                new TransactionAnalyticsRow(DappTransaction.TransactionType.SWAP, DappTransaction.TransactionStatus.CONFIRMED,
+                        null, null, created, created.plusSeconds(12)),
+                new TransactionAnalyticsRow(DappTransaction.TransactionType.SWAP, DappTransaction.TransactionStatus.FAILED,
+                        null, null, created, null),
+                new TransactionAnalyticsRow(DappTransaction.TransactionType.LEND, DappTransaction.TransactionStatus.PENDING,
+                        null, null, created, null)));
+
+        TransactionAnalyticsService.TransactionHistory history =
+                analyticsService.getTransactionHistory(1L, "ethereum", PageRequest.of(0, 1), true);
+
+        assertEquals(1, history.getTransactions().size());
+        assertEquals(3, history.getAnalytics().getTotalTransactions());
+        assertEquals(1, history.getAnalytics().getFailedTransactions());
+        assertEquals(12, history.getAnalytics().getMaxConfirmationTime());
+    }
+
+    @Test
+    void testQuerySearchUsesNormalizedPrefixRange() {
+        when(dappTransactionRepository.searchTransactionsByQuery(eq(1L), eq("0xabc"), eq("0xabd"), any()))
+                .thenReturn(new PageImpl<>(Collections.emptyList()));
+
+        analyticsService.searchTransactionsByQuery(1L, "  ABC ", PageRequest.of(0, 20));
+
+        verify(dappTransactionRepository).searchTransactionsByQuery(eq(1L), eq("0xabc"), eq("0xabd"), any());
+        assertEquals("0xdead", TransactionAnalyticsService.searchPrefix("0xDEAD"));
+        assertEquals("uniswap", TransactionAnalyticsService.searchPrefix("Uniswap"));
+        assertNull(TransactionAnalyticsService.searchPrefix(" "));
+        assertEquals("0xag", TransactionAnalyticsService.prefixEnd("0xaf"));
+    }
+
+    private static TransactionRollup rollup(
+            LocalDate day, DappTransaction.TransactionType type, long count, long confirmed, long failed) {
+        TransactionRollup rollup = new TransactionRollup();
+        rollup.setDay(day);
+        rollup.setType(type);
+        rollup.setTransactionCount(count);
+        rollup.setConfirmedCount(confirmed);
+        rollup.setFailedCount(failed);
+        rollup.setGasSpent(new BigDecimal("21000000000000").multiply(BigDecimal.valueOf(count)));
+        rollup.setGasPriceSum(new BigDecimal("1000000000").multiply(BigDecimal.valueOf(count)));
+        return rollup;
+    }
+
+    private static DappTransactionRepository.AnalyticsAggregate aggregate(
+            DappTransaction.TransactionType type, DappTransaction.TransactionStatus status, long count, Long seconds) {
+        return new DappTransactionRepository.AnalyticsAggregate() {
+            public String getType() { return type.name(); }
+            public String getStatus() { return status.name(); }
+            public Long getTransactionCount() { return count; }
+            public BigDecimal getGasSpent() { return new BigDecimal("21000000000000").multiply(BigDecimal.valueOf(count)); }
+            public BigDecimal getGasPriceSum() { return new BigDecimal("1000000000").multiply(BigDecimal.valueOf(count)); }
+            public Long getConfirmationSeconds() { return seconds != null ? seconds : 0L; }
+            public Long getConfirmationCount() { return seconds != null ? 1L : 0L; }
+            public Long getMinConfirmationSeconds() { return seconds; }
+            public Long getMaxConfirmationSeconds() { return seconds; }
+        };
+    }
+}
@@ -0,0 +1,236 @@
+package com.web3platform.wallet_service.service;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Archives months of a migrated dapp_transaction table on a real PostgreSQL. Each test works
+ * on a month of its own, a year or more back, so the partitions do not interfere.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public class TransactionArchiveServiceIntegrationTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final long MAINTENANCE_LOCK = 0x64617070L;
+
+    private static DriverManagerDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionArchiveService archiveService;
+
+    @BeforeAll
+    static void migrate() {
+        dataSource = new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).load().migrate();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        archiveService = new TransactionArchiveService();
+        ReflectionTestUtils.setField(archiveService, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(archiveService, "transactionManager", new DataSourceTransactionManager(dataSource));
+        ReflectionTestUtils.setField(archiveService, "monthsAhead", 0);
+        ReflectionTestUtils.setField(archiveService, "lockTimeoutMillis", 5000L);
+        archiveService.init();
+    }
+
+    @Test
+    void testSettledMonthIsSwappedForArchivePartition() {
+        YearMonth month = YearMonth.now().minusMonths(12);
+        archiveService.createUpcomingPartitions(month);
+        insert(month, 1L, "0xaa01", "CONFIRMED", "CONFIRMED");
+        insert(month, 2L, "0xaa02", "FAILED", "FAILED");
+        insert(month, 1L, "0xab03", "CONFIRMED", "CONFIRMED");
+
+        assertTrue(archiveService.archive(month));
+
+        String partition = TransactionArchiveService.partitionName(month);
+        String archive = partition + TransactionArchiveService.ARCHIVE_SUFFIX;
+        List<String> partitions = partitions();
+        assertTrue(partitions.contains(archive));
+        assertFalse(partitions.contains(partition));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_class WHERE relname = ?", Integer.class, partition));
+        // The bounds check only served the attach
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_constraint WHERE conname = ?", Integer.class, archive + "_bounds"));
+        // Every index of the table has its copy on the archive
+        assertEquals(
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_indexes WHERE tablename = 'dapp_transaction'", Integer.class),
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_indexes WHERE tablename = ?", Integer.class, archive));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + archive, Integer.class));
+    }
+
+    @Test
+    void testArchivedMonthIsSearchedThroughTheTable() {
+        YearMonth month = YearMonth.now().minusMonths(13);
+        archiveService.createUpcomingPartitions(month);
+        insert(month, 7L, "0xcd01", "CONFIRMED", "CONFIRMED");
+        insert(month, 7L, "0xce02", "CONFIRMED", "CONFIRMED");
+        insert(month, 8L, "0xcd03", "CONFIRMED", "CONFIRMED");
+        assertTrue(archiveService.archive(month));
+
+        // searchTransactionsByQuery, bounded to the archived month
+        List<String> hashes = jdbcTemplate.queryForList(
+                "SELECT transaction_hash FROM dapp_transaction WHERE user_id = 7 AND " +
+                "transaction_hash_lc >= '0xcd' AND transaction_hash_lc < '0xce' AND " +
+                "created_at >= ? AND created_at < ? ORDER BY created_at DESC",
+                String.class, month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+        assertEquals(List.of("0xcd01"), hashes);
+
+        // Inserts for the month still land in the archive partition
+        insert(month, 7L, "0xcd04", "CONFIRMED", "CONFIRMED");
+        assertEquals(4, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + TransactionArchiveService.partitionName(month) + TransactionArchiveService.ARCHIVE_SUFFIX,
+                Integer.class));
+    }
+
+    @Test
+    void testUnsettledMonthIsNotArchived() {
+        YearMonth month = YearMonth.now().minusMonths(14);
+        archiveService.createUpcomingPartitions(month);
+        insert(month, 1L, "0xef01", "CONFIRMED", "CONFIRMED");
+        insert(month, 1L, "0xef02", "PENDING", null);
+
+        assertFalse(archiveService.archive(month));
+
+        // Confirmed but not yet rolled up
+        jdbcTemplate.update("UPDATE dapp_transaction SET status = 'CONFIRMED' WHERE transaction_hash = '0xef02'");
+        assertFalse(archiveService.archive(month));
+
+        assertTrue(partitions().contains(TransactionArchiveService.partitionName(month)));
+        assertFalse(partitions().contains(TransactionArchiveService.partitionName(month) + TransactionArchiveService.ARCHIVE_SUFFIX));
+
+        jdbcTemplate.update("UPDATE dapp_transaction SET rollup_status = status WHERE transaction_hash = '0xef02'");
+        assertTrue(archiveService.archive(month));
+    }
+
+    @Test
+    void testMonthIsNotArchivedWhileAnotherNodeMaintains() throws Exception {
+        YearMonth month = YearMonth.now().minusMonths(15);
+        archiveService.createUpcomingPartitions(month);
+        insert(month, 1L, "0x1201", "CONFIRMED", "CONFIRMED");
+
+        try (Connection other = dataSource.getConnection(); Statement statement = other.createStatement()) {
+            statement.execute("SELECT pg_advisory_lock(" + MAINTENANCE_LOCK + ")");
+            assertFalse(archiveService.archive(month));
+            statement.execute("SELECT pg_advisory_unlock(" + MAINTENANCE_LOCK + ")");
+        }
+
+        assertTrue(partitions().contains(TransactionArchiveService.partitionName(month)));
+        assertTrue(archiveService.archive(month));
+    }
+
+    @Test
+    void testMonthChangedWhileCopiedIsNotSwapped() {
+        YearMonth month = YearMonth.now().minusMonths(16);
+        archiveService.createUpcomingPartitions(month);
+        insert(month, 1L, "0x1601", "FAILED", "FAILED");
+        insert(month, 1L, "0x1602", "CONFIRMED", "CONFIRMED");
+
+        assertTrue(archiveService.guard(month));
+        // A retry reopening the failed transaction while the month is being copied
+        jdbcTemplate.update("UPDATE dapp_transaction SET retry_count = 1 WHERE transaction_hash = '0x1601'");
+        assertFalse(archiveService.copyAndSwap(month));
+
+        String partition = TransactionArchiveService.partitionName(month);
+        assertTrue(partitions().contains(partition));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_class WHERE relname = ?", Integer.class, partition + TransactionArchiveService.ARCHIVE_SUFFIX));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT retry_count FROM " + partition + " WHERE transaction_hash = '0x1601'", Integer.class));
+
+        // A later run starts from a clean record
+        assertTrue(archiveService.archive(month));
+    }
+
+    @Test
+    void testArchiveRunsAlongsideIdKeyedWrites() throws Exception {
+        YearMonth month = YearMonth.now().minusMonths(17);
+        archiveService.createUpcomingPartitions(month);
+        jdbcTemplate.update("INSERT INTO dapp_transaction (type, status, transaction_hash, created_at, amount, token, " +
+                "from_address, to_address, user_id, wallet_address, network, rollup_status) " +
+                "SELECT 'SWAP', 'CONFIRMED', '0x17' || i, ? + i * interval '1 second', '1', 'ETH', '0xfrom', '0xto', " +
+                "i % 50, '0xwallet', 'ethereum', 'CONFIRMED' FROM generate_series(1, 20000) AS i",
+                month.atDay(1).atStartOfDay());
+        // An in-flight transaction of the current month, updated by id like the monitor does
+        insert(YearMonth.now(), 1L, "0x1700", "PENDING", null);
+        Long pendingId = jdbcTemplate.queryForObject(
+                "SELECT id FROM dapp_transaction WHERE transaction_hash = '0x1700'", Long.class);
+        String leaseUpdate = "UPDATE dapp_transaction SET lease_owner = 'node-1', lease_expires_at = LOCALTIMESTAMP WHERE id = ?";
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        AtomicBoolean running = new AtomicBoolean(true);
+        try (Connection open = dataSource.getConnection()) {
+            // Holds its locks on every partition while the archive starts
+            open.setAutoCommit(false);
+            try (PreparedStatement statement = open.prepareStatement(leaseUpdate)) {
+                statement.setLong(1, pendingId);
+                statement.executeUpdate();
+            }
+
+            Future<Integer> writer = executor.submit(() -> {
+                int writes = 0;
+                while (running.get()) {
+                    jdbcTemplate.update(leaseUpdate, pendingId);
+                    writes++;
+                }
+                return writes;
+            });
+            Future<Boolean> archived = executor.submit(() -> archiveService.archive(month));
+
+            Thread.sleep(500);
+            open.commit();
+
+            assertTrue(archived.get(60, TimeUnit.SECONDS));
+            running.set(false);
+            assertTrue(writer.get(10, TimeUnit.SECONDS) > 0);
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+
+        assertEquals(20000, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + TransactionArchiveService.partitionName(month) + TransactionArchiveService.ARCHIVE_SUFFIX,
+                Integer.class));
+    }
+
+    private void insert(YearMonth month, Long userId, String hash, String status, String rollupStatus) {
+        jdbcTemplate.update("INSERT INTO dapp_transaction (type, status, transaction_hash, created_at, amount, token, " +
+                        "from_address, to_address, user_id, wallet_address, network, transaction_hash_lc, " +
+                        "wallet_address_lc, rollup_status) " +
+                        "VALUES ('SWAP', ?, ?, ?, '1', 'ETH', '0xfrom', '0xto', ?, '0xwallet', 'ethereum', ?, '0xwallet', ?)",
+                status, hash, month.atDay(2).atStartOfDay(), userId, hash, rollupStatus);
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = 'dapp_transaction'::regclass", String.class);
+    }
+}
@@ -0,0 +1,47 @@
+package com.web3platform.wallet_service.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionArchiveServiceTest {
+
+    @Test
+    void testOnlyHotMonthsPastTheArchiveAgeAreArchivable() {
+        List<String> partitions = Arrays.asList(
+                "dapp_transaction_p202403",
+                "dapp_transaction_p202401_archive",
+                "dapp_transaction_default",
+                "dapp_transaction_p202402",
+                "dapp_transaction_p202404");
+
+        // Cutoff 2024-04-01: March ended on it, April has not
+        List<YearMonth> months = TransactionArchiveService.archivableMonths(partitions, LocalDate.of(2024, 4, 11), 10);
+
+        assertEquals(Arrays.asList(YearMonth.of(2024, 2), YearMonth.of(2024, 3)), months);
+    }
+
+    @Test
+    void testIndexDefinitionTargetsArchiveTable() {
+        String definition = "CREATE INDEX idx_dapp_transaction_in_flight ON ONLY public.dapp_transaction " +
+                "USING btree (status, id) WHERE ((status)::text = ANY ((ARRAY['PENDING'::character varying, " +
+                "'SUBMITTED'::character varying])::text[]))";
+
+        String archived = TransactionArchiveService.indexDefinition(
+                definition, "idx_dapp_transaction_in_flight", "dapp_transaction_p202401_archive", 3);
+
+        assertEquals("CREATE INDEX dapp_transaction_p202401_archive_idx3 ON dapp_transaction_p202401_archive " +
+                "USING btree (status, id) WHERE ((status)::text = ANY ((ARRAY['PENDING'::character varying, " +
+                "'SUBMITTED'::character varying])::text[]))", archived);
+    }
+
+    @Test
+    void testPartitionNamesAreMonthly() {
+        assertEquals("dapp_transaction_p202412", TransactionArchiveService.partitionName(YearMonth.of(2024, 12)));
+    }
+}
@@ -0,0 +1,101 @@
+package com.web3platform.wallet_service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web3platform.wallet_service.dto.TransactionExportRow;
+import com.web3platform.wallet_service.model.DappTransaction;
+import com.web3platform.wallet_service.repository.DappTransactionRepository;
+import com.web3platform.wallet_service.util.TransactionCursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionExportServiceTest {
+
+    @Mock
+    private DappTransactionRepository dappTransactionRepository;
+
+    @InjectMocks
+    private TransactionExportService exportService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final LocalDateTime time = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(exportService, "objectMapper", objectMapper);
+    }
+
+    @Test
+    void testCsvEscapesValuesAndCarriesResumeCursor() throws Exception {
+        when(dappTransactionRepository.streamExportRows(eq(7L), isNull(), any(), any())).thenReturn(Stream.of(
+                row(2L, time, "uni,swap"),
+                row(1L, time.minusHours(1), "say \"hi\"")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = exportService.export(7L, null, TransactionCursor.FIRST, TransactionExportService.ExportFormat.CSV, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, count);
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].startsWith("cursor,id,timestamp,"));
+        assertTrue(lines[1].contains(",\"uni,swap\","));
+        assertTrue(lines[2].contains(",\"say \"\"hi\"\"\","));
+        // 1000000000 wei stays a plain number
+        assertTrue(lines[1].contains(",1000000000,21000,"));
+        String cursor = lines[2].substring(0, lines[2].indexOf(','));
+        assertEquals(new TransactionCursor(time.minusHours(1), 1L), TransactionCursor.decode(cursor));
+    }
+
+    @Test
+    void testNdjsonWritesOneObjectPerLine() throws Exception {
+        TransactionCursor after = new TransactionCursor(time.plusDays(1), 10L);
+        when(dappTransactionRepository.streamExportRows(7L, "ethereum", after.getTimestamp(), 10L)).thenReturn(Stream.of(
+                row(2L, time, "uniswap"),
+                row(1L, time.minusHours(1), null)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        exportService.export(7L, "ethereum", after, TransactionExportService.ExportFormat.NDJSON, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals(2L, first.get("id").asLong());
+        assertEquals("uniswap", first.get("dappName").asText());
+        assertEquals("CONFIRMED", first.get("status").asText());
+        assertTrue(second.get("dappName").isNull());
+        assertEquals(new TransactionCursor(time, 2L), TransactionCursor.decode(first.get("cursor").asText()));
+    }
+
+    @Test
+    void testEmptyHistoryWritesOnlyCsvHeader() throws Exception {
+        when(dappTransactionRepository.streamExportRows(eq(7L), isNull(), any(), any())).thenReturn(Stream.empty());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(0, exportService.export(7L, null, TransactionCursor.FIRST, TransactionExportService.ExportFormat.CSV, out));
+        assertEquals(String.join(",", TransactionExportService.COLUMNS) + "\r\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    private TransactionExportRow row(Long id, LocalDateTime timestamp, String dappName) {
+        return new TransactionExportRow(id, timestamp, timestamp.plusSeconds(30),
+                DappTransaction.TransactionType.SWAP, DappTransaction.TransactionStatus.CONFIRMED,
+                "ethereum", dappName, "0xhash" + id, "0xwallet", "0xfrom", "0xto", null, "ETH", "1.5",
+                new BigDecimal("1.5"), new BigDecimal("1000000000"), 21000L, 100L + id);
+    }
+}
@@ -0,0 +1,146 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.dto.TransactionSeriesRow;
+import com.web3platform.wallet_service.model.DappTransaction;
+import com.web3platform.wallet_service.repository.DappTransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionSeriesStoreTest {
+
+    @Mock
+    private DappTransactionRepository dappTransactionRepository;
+
+    @InjectMocks
+    private TransactionSeriesStore seriesStore;
+
+    private final LocalDateTime day = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(seriesStore, "maxUsers", 2);
+        ReflectionTestUtils.setField(seriesStore, "maxBuckets", 1000);
+        ReflectionTestUtils.setField(seriesStore, "ttlMillis", 60_000L);
+        lenient().when(dappTransactionRepository.streamSeriesRows(7L)).thenReturn(Stream.of(
+                row(1L, day.plusMinutes(10), "ethereum", "uniswap", DappTransaction.TransactionStatus.CONFIRMED),
+                row(2L, day.plusMinutes(50), "ethereum", "aave", DappTransaction.TransactionStatus.FAILED),
+                row(3L, day.plusHours(5), "polygon", "uniswap", DappTransaction.TransactionStatus.PENDING)));
+    }
+
+    @Test
+    void testHourlyBucketsWithFilters() {
+        List<TransactionSeriesStore.SeriesPoint> points = seriesStore.getSeries(
+                7L, null, null, TransactionSeriesStore.SeriesInterval.HOURLY, day, day.plusDays(1)).getPoints();
+
+        assertEquals(2, points.size());
+        assertEquals(day, points.get(0).getBucketStart());
+        assertEquals(2, points.get(0).getTransactionCount());
+        assertEquals(1, points.get(0).getConfirmedCount());
+        assertEquals(1, points.get(0).getFailedCount());
+        assertEquals(0, new BigDecimal("42000000000000").compareTo(points.get(0).getGasSpent()));
+        assertEquals(2.0, points.get(0).getVolume(), 1e-9);
+        assertEquals(day.plusHours(5), points.get(1).getBucketStart());
+
+        List<TransactionSeriesStore.SeriesPoint> uniswapOnEthereum = seriesStore.getSeries(
+                7L, "ethereum", "uniswap", TransactionSeriesStore.SeriesInterval.DAILY, day, day.plusDays(1)).getPoints();
+        assertEquals(1, uniswapOnEthereum.size());
+        assertEquals(1, uniswapOnEthereum.get(0).getTransactionCount());
+
+        assertTrue(seriesStore.getSeries(7L, "solana", null,
+                TransactionSeriesStore.SeriesInterval.DAILY, day, day.plusDays(1)).getPoints().isEmpty());
+        verify(dappTransactionRepository, times(1)).streamSeriesRows(7L);
+    }
+
+    @Test
+    void testIncrementalUpdatesAfterLoad() {
+        seriesStore.getSeries(7L, null, null, TransactionSeriesStore.SeriesInterval.DAILY, day, day.plusDays(1));
+
+        DappTransaction saved = new DappTransaction();
+        saved.setId(4L);
+        saved.setUserId(7L);
+        saved.setTimestamp(day.plusHours(2));
+        saved.setNetwork("ethereum");
+        saved.setStatus(DappTransaction.TransactionStatus.PENDING);
+        seriesStore.onSaved(saved);
+        seriesStore.onStatusChanged(7L, 3L, DappTransaction.TransactionStatus.CONFIRMED);
+        seriesStore.onStatusChanged(8L, 3L, DappTransaction.TransactionStatus.CONFIRMED); // not loaded, ignored
+
+        TransactionSeriesStore.SeriesPoint point = seriesStore.getSeries(
+                7L, null, null, TransactionSeriesStore.SeriesInterval.DAILY, day, day.plusDays(1)).getPoints().get(0);
+        assertEquals(4, point.getTransactionCount());
+        assertEquals(2, point.getConfirmedCount());
+        assertEquals(1, seriesStore.getUserCount());
+    }
+
+    @Test
+    void testUpdatesAreAppliedOnlyAfterCommit() {
+        seriesStore.getSeries(7L, null, null, TransactionSeriesStore.SeriesInterval.DAILY, day, day.plusDays(1));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            seriesStore.onStatusChanged(7L, 3L, DappTransaction.TransactionStatus.CONFIRMED);
+            assertEquals(1, confirmedCount());
+
+            // Rolled back
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_ROLLED_BACK);
+            TransactionSynchronizationManager.clearSynchronization();
+            TransactionSynchronizationManager.initSynchronization();
+            assertEquals(1, confirmedCount());
+
+            seriesStore.onStatusChanged(7L, 3L, DappTransaction.TransactionStatus.CONFIRMED);
+            TransactionSynchronizationUtils.triggerAfterCommit();
+            assertEquals(2, confirmedCount());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testExpiredColumnsAreReloaded() {
+        when(dappTransactionRepository.streamSeriesRows(7L)).thenAnswer(invocation -> Stream.of(
+                row(1L, day.plusMinutes(10), "ethereum", "uniswap", DappTransaction.TransactionStatus.CONFIRMED)));
+        seriesStore.getSeries(7L, null, null, TransactionSeriesStore.SeriesInterval.DAILY, day, day.plusDays(1));
+        seriesStore.getSeries(7L, null, null, TransactionSeriesStore.SeriesInterval.DAILY, day, day.plusDays(1));
+        verify(dappTransactionRepository, times(1)).streamSeriesRows(7L);
+
+        ReflectionTestUtils.setField(seriesStore, "ttlMillis", -1L);
+        seriesStore.getSeries(7L, null, null, TransactionSeriesStore.SeriesInterval.DAILY, day, day.plusDays(1));
+        verify(dappTransactionRepository, times(2)).streamSeriesRows(7L);
+        assertEquals(1, seriesStore.getUserCount());
+    }
+
+    @Test
+    void testRangeBeyondBucketLimitIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> seriesStore.getSeries(
+                7L, null, null, TransactionSeriesStore.SeriesInterval.HOURLY, day, day.plusDays(60)));
+    }
+
+    private int confirmedCount() {
+        return seriesStore.getSeries(7L, null, null, TransactionSeriesStore.SeriesInterval.DAILY, day, day.plusDays(1))
+                .getPoints().get(0).getConfirmedCount();
+    }
+
+    private static TransactionSeriesRow row(
+            Long id, LocalDateTime timestamp, String network, String dapp, DappTransaction.TransactionStatus status) {
+        return new TransactionSeriesRow(id, timestamp, network, dapp, status,
+                new BigDecimal("1000000000"), 21000L, BigDecimal.ONE);
+    }
+}
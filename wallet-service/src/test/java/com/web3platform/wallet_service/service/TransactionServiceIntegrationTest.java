@@ -3,6 +3,7 @@ package com.web3platform.wallet_service.service;
 import com.web3platform.wallet_service.model.DappTransaction;
 import com.web3platform.wallet_service.repository.DappTransactionRepository;
 import com.web3platform.wallet_service.dto.TransactionDTO;
+import com.web3platform.wallet_service.dto.TransactionSummaryDTO;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -62,7 +63,8 @@ public class TransactionServiceIntegrationTest {
         PageRequest pageRequest = PageRequest.of(0, 5, Sort.by("timestamp").descending());
         Page<DappTransaction> transactionPage = new PageImpl<>(Arrays.asList(testTransaction1, testTransaction2));
 
-        when(transactionRepository.findAll(any(PageRequest.class))).thenReturn(transactionPage);
+        when(transactionRepository.findRecentSummaries(any(PageRequest.class))).thenReturn(Arrays.asList(
+            summary(testTransaction1), summary(testTransaction2)));
         when(transactionRepository.findById(1L)).thenReturn(java.util.Optional.of(testTransaction1));
         when(transactionRepository.findByTypeAndStatus("SWAP", "COMPLETED", pageRequest))
             .thenReturn(new PageImpl<>(List.of(testTransaction1)));
@@ -75,7 +77,7 @@ public class TransactionServiceIntegrationTest {
     @Test
     void testGetRecentTransactions() {
         // When
-        List<TransactionDTO> transactions = transactionService.getRecentTransactions(5);
+        List<TransactionSummaryDTO> transactions = transactionService.getRecentTransactions(5);
 
         // Then
         assertNotNull(transactions);
@@ -84,7 +86,7 @@ public class TransactionServiceIntegrationTest {
         assertEquals("TRANSFER", transactions.get(1).getType());
 
         // Verify repository interaction
-        verify(transactionRepository).findAll(any(PageRequest.class));
+        verify(transactionRepository).findRecentSummaries(any(PageRequest.class));
     }
 
     @Test
@@ -153,4 +155,12 @@ public class TransactionServiceIntegrationTest {
         // When/Then
         assertThrows(RuntimeException.class, () -> transactionService.getTransactionDetails("999"));
     }
+
+    private static TransactionSummaryDTO summary(DappTransaction transaction) {
+        return new TransactionSummaryDTO(transaction.getId(), transaction.getType(), transaction.getStatus(),
+            transaction.getTransactionHash(), transaction.getTimestamp(), transaction.getAmount(),
+            transaction.getToken(), transaction.getFromAddress(), transaction.getToAddress(),
+            transaction.getWalletAddress(), transaction.getNetwork(), transaction.getDappName(),
+            transaction.getValue(), transaction.getBlockNumber());
+    }
 }
\ No newline at end of file
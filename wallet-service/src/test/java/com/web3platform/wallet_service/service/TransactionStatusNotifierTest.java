@@ -0,0 +1,84 @@
+package com.web3platform.wallet_service.service;
+
+import com.web3platform.wallet_service.model.DappTransaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TransactionStatusNotifierTest {
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @InjectMocks
+    private TransactionStatusNotifier notifier;
+
+    private PendingTransactionIndex.TrackedTransaction transaction;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new PendingTransactionIndex.TrackedTransaction();
+        transaction.setId(1L);
+        transaction.setUserId(7L);
+        transaction.setTransactionHash("0xabc");
+        transaction.setNetwork("ethereum");
+        transaction.setStatus(DappTransaction.TransactionStatus.PENDING);
+    }
+
+    @Test
+    void testUnchangedStateIsNotEmittedAgain() {
+        assertTrue(notifier.publish(transaction, "pending", 0, "Transaction is pending"));
+        assertFalse(notifier.publish(transaction, "pending", 0, "Transaction is pending"));
+
+        assertTrue(notifier.publish(transaction, "mined", 1, "Transaction mined (1/12)"));
+        assertFalse(notifier.publish(transaction, "mined", 1, "Transaction mined (1/12)"));
+        assertTrue(notifier.publish(transaction, "mined", 2, "Transaction mined (2/12)"));
+    }
+
+    @Test
+    void testUpdatesForSameUserAreCoalescedIntoOneFrame() {
+        PendingTransactionIndex.TrackedTransaction other = new PendingTransactionIndex.TrackedTransaction();
+        other.setId(2L);
+        other.setUserId(7L);
+        other.setStatus(DappTransaction.TransactionStatus.PENDING);
+
+        notifier.publish(transaction, "mined", 1, "Transaction mined (1/12)");
+        notifier.publish(transaction, "mined", 2, "Transaction mined (2/12)");
+        notifier.publish(other, "pending", 0, "Transaction is pending");
+        notifier.flush();
+
+        ArgumentCaptor<TransactionStatusNotifier.TransactionStatusBatch> captor =
+                ArgumentCaptor.forClass(TransactionStatusNotifier.TransactionStatusBatch.class);
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/transactions/7"), captor.capture());
+
+        // Only the latest update per transaction is kept within a window
+        TransactionStatusNotifier.TransactionStatusBatch batch = captor.getValue();
+        assertEquals(2, batch.getUpdates().size());
+        assertEquals("Transaction mined (2/12)", batch.getUpdates().get(0).getMessage());
+
+        notifier.flush();
+        verifyNoMoreInteractions(messagingTemplate);
+    }
+
+    @Test
+    void testTerminalStateReleasesTrackedTransaction() {
+        notifier.publish(transaction, "mined", 11, "Transaction mined (11/12)");
+        transaction.setStatus(DappTransaction.TransactionStatus.CONFIRMED);
+        notifier.publish(transaction, "confirmed", 12, "Transaction confirmed");
+        notifier.flush();
+
+        assertEquals(0, notifier.getTrackedCount());
+        verify(messagingTemplate).convertAndSend(eq("/topic/transactions/7"), any(Object.class));
+    }
+}
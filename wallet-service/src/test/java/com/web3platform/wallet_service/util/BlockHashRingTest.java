@@ -0,0 +1,52 @@
+package com.web3platform.wallet_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlockHashRingTest {
+
+    @Test
+    void testReturnsRecordedHashes() {
+        BlockHashRing ring = new BlockHashRing(8);
+        ring.put(100, "0xa");
+        ring.put(101, "0xb");
+
+        assertEquals("0xa", ring.get(100));
+        assertEquals("0xb", ring.get(101));
+        assertNull(ring.get(102));
+        assertEquals(101, ring.getHighest());
+    }
+
+    @Test
+    void testOldBlocksFallOutOfWindow() {
+        BlockHashRing ring = new BlockHashRing(4);
+        for (long number = 0; number < 10; number++) {
+            ring.put(number, "0x" + number);
+        }
+
+        assertNull(ring.get(5));
+        assertEquals("0x6", ring.get(6));
+        assertEquals("0x9", ring.get(9));
+    }
+
+    @Test
+    void testRewriteAfterReorg() {
+        BlockHashRing ring = new BlockHashRing(8);
+        ring.put(10, "0xa");
+        ring.put(11, "0xb");
+        ring.put(12, "0xc");
+
+        // Shorter competing chain replaces 11 and drops 12
+        ring.put(11, "0xb2");
+        ring.truncateAbove(11);
+
+        assertEquals("0xb2", ring.get(11));
+        assertNull(ring.get(12));
+    }
+
+    @Test
+    void testRejectsNonPowerOfTwoCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new BlockHashRing(100));
+    }
+}
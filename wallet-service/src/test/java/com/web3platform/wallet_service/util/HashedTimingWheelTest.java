@@ -0,0 +1,61 @@
+package com.web3platform.wallet_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashedTimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void testItemFiresOnlyAfterDeadline() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 8, START);
+        wheel.schedule("tx", START + 350);
+
+        assertTrue(wheel.advance(START + 300).isEmpty());
+        assertEquals(List.of("tx"), wheel.advance(START + 400));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testOverdueItemFiresOnNextAdvance() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 8, START);
+        wheel.advance(START + 500);
+        wheel.schedule("late", START);
+
+        assertEquals(List.of("late"), wheel.advance(START + 600));
+    }
+
+    @Test
+    void testDeadlineBeyondOneRotationWaitsForItsLap() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 8, START);
+        // 20 ticks ahead on an 8-slot wheel shares a bucket with tick 4 and tick 12
+        wheel.schedule("far", START + 2000);
+
+        assertTrue(wheel.advance(START + 500).isEmpty());
+        assertTrue(wheel.advance(START + 1300).isEmpty());
+        assertEquals(List.of("far"), wheel.advance(START + 2000));
+    }
+
+    @Test
+    void testLongPauseExpiresEverythingDue() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 8, START);
+        wheel.schedule("a", START + 100);
+        wheel.schedule("b", START + 5000);
+        wheel.schedule("c", START + 50000);
+
+        List<String> expired = wheel.advance(START + 10000);
+
+        assertEquals(2, expired.size());
+        assertTrue(expired.containsAll(List.of("a", "b")));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void testWheelSizeMustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel<String>(100, 10, START));
+    }
+}
@@ -0,0 +1,54 @@
+package com.web3platform.wallet_service.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Int128SumTest {
+
+    @Test
+    void testProductsBeyondLongRangeAreExact() {
+        Int128Sum sum = new Int128Sum();
+        // 500 gwei * 30M gas, a thousand times over
+        for (int i = 0; i < 1000; i++) {
+            sum.addProduct(500_000_000_000L, 30_000_000L);
+        }
+        sum.addProduct(Long.MAX_VALUE, Long.MAX_VALUE);
+
+        BigInteger expected = BigInteger.valueOf(500_000_000_000L)
+                .multiply(BigInteger.valueOf(30_000_000L))
+                .multiply(BigInteger.valueOf(1000))
+                .add(BigInteger.valueOf(Long.MAX_VALUE).pow(2));
+        assertEquals(expected, sum.toBigInteger());
+    }
+
+    @Test
+    void testCarryAndNegativeValues() {
+        Int128Sum sum = new Int128Sum();
+        sum.add(-1L);
+        sum.add(1L);
+        assertTrue(sum.isZero());
+
+        sum.add(Long.MAX_VALUE);
+        sum.add(Long.MAX_VALUE);
+        sum.add(Long.MIN_VALUE);
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE - 1), sum.toBigInteger());
+
+        sum.add(new BigDecimal("-18446744073709551616")); // -2^64
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE - 1).subtract(BigInteger.ONE.shiftLeft(64)),
+                sum.toBigInteger());
+    }
+
+    @Test
+    void testMerge() {
+        Int128Sum a = new Int128Sum();
+        Int128Sum b = new Int128Sum();
+        a.addProduct(Long.MAX_VALUE, 4);
+        b.addProduct(Long.MAX_VALUE, 6);
+        a.add(b);
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.TEN), a.toBigInteger());
+    }
+}
@@ -0,0 +1,55 @@
+package com.web3platform.wallet_service.util;
+
+import com.web3platform.wallet_service.model.DappTransaction;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionCursorTest {
+
+    @Test
+    void testRoundTripKeepsTimestampAndId() {
+        TransactionCursor cursor = new TransactionCursor(LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123456000), 42L);
+
+        String token = cursor.encode();
+
+        assertFalse(token.contains("="));
+        assertEquals(cursor, TransactionCursor.decode(token));
+    }
+
+    @Test
+    void testMissingTokenStartsAtTheNewestRow() {
+        assertSame(TransactionCursor.FIRST, TransactionCursor.decode(null));
+        assertSame(TransactionCursor.FIRST, TransactionCursor.decode(""));
+    }
+
+    @Test
+    void testMalformedTokenIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> TransactionCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> TransactionCursor.decode("AAAA"));
+    }
+
+    @Test
+    void testNextContinuesAfterLastRowOfSlice() {
+        DappTransaction newer = transaction(2L, LocalDateTime.of(2024, 3, 2, 0, 0));
+        DappTransaction older = transaction(1L, LocalDateTime.of(2024, 3, 1, 0, 0));
+
+        String next = TransactionCursor.next(new SliceImpl<>(Arrays.asList(newer, older), PageRequest.of(0, 2), true));
+
+        assertEquals(new TransactionCursor(older.getTimestamp(), 1L), TransactionCursor.decode(next));
+        assertNull(TransactionCursor.next(new SliceImpl<>(Collections.singletonList(newer), PageRequest.of(0, 2), false)));
+    }
+
+    private DappTransaction transaction(Long id, LocalDateTime timestamp) {
+        DappTransaction transaction = new DappTransaction();
+        transaction.setId(id);
+        transaction.setTimestamp(timestamp);
+        return transaction;
+    }
+}